@@ -0,0 +1,74 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.BatchSimulator;
+import name.kezzyhlo.moose_game.BatchStrategies;
+import name.kezzyhlo.moose_game.Match;
+import name.kezzyhlo.moose_game.Random;
+import name.kezzyhlo.moose_game.Tournament;
+import name.kezzyhlo.moose_game.players.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Compares the cost of one round in {@link BatchSimulator} with the cost of one round in separate {@link Match}es.
+ * The batch plays every round, so the matches do not skip repetitions of cycles either
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchSimulatorBenchmark {
+
+    /**
+     * Amount of matches in the batch
+     */
+    private static final int MATCHES = 1024;
+
+    /**
+     * Amount of rounds in each match
+     */
+    private static final int ROUNDS = 1000;
+
+    @Param({"AlwaysSamePlayer", "BestFieldPlayer", "CopycatPlayer"})
+    public String strategy1;
+
+    @Param({"AlwaysSamePlayer", "BestFieldPlayer", "CopycatPlayer"})
+    public String strategy2;
+
+    private Player player1;
+    private Player player2;
+    private BatchSimulator simulator;
+
+    @Setup
+    public void setUp() {
+        player1 = Strategies.create(strategy1);
+        player2 = Strategies.create(strategy2);
+        simulator = new BatchSimulator(
+                BatchStrategies.forPlayer(player1),
+                BatchStrategies.forPlayer(player2),
+                MATCHES,
+                Tournament.PAYOFF_TABLE,
+                new Random(42)
+        );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES * ROUNDS)
+    public double[] batch() {
+        return simulator.play(ROUNDS).getScores1();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES * ROUNDS)
+    public void separateMatches(Blackhole blackhole) {
+        for (int m = 0; m < MATCHES; m++) {
+            blackhole.consume(new Match(player1, player2, ROUNDS).setFastForward(false).play().getScore1());
+        }
+    }
+
+}
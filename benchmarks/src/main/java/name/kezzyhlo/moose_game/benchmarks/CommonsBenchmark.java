@@ -0,0 +1,118 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.CommonsMatch;
+import name.kezzyhlo.moose_game.Random;
+import name.kezzyhlo.moose_game.Tournament;
+import name.kezzyhlo.moose_game.players.GameState;
+import name.kezzyhlo.moose_game.players.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the average cost of one round of a {@link CommonsMatch} with many fields and players.
+ * With {@code bestFields=scan}, players see the fields only through {@link GameState#getX(int)},
+ * so the best field is found by the default linear scan instead of the indexed maximum of the engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CommonsBenchmark {
+
+    /**
+     * Amount of rounds in the measured match
+     */
+    private static final int ROUNDS = 1000;
+
+    @Param({"BestFieldPlayer"})
+    public String strategy;
+
+    @Param({"3", "30", "300"})
+    public int fields;
+
+    @Param({"2", "20", "200"})
+    public int players;
+
+    @Param({"indexed", "scan"})
+    public String bestFields;
+
+    private List<Player> commons;
+
+    @Setup
+    public void setUp() {
+        commons = new ArrayList<>(players);
+        for (int p = 0; p < players; p++) {
+            Player player = Strategies.create(strategy);
+            commons.add(bestFields.equals("scan") ? new ScanningPlayer(player) : player);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUNDS)
+    public double round() {
+        return new CommonsMatch(commons, fields, ROUNDS, Tournament.PAYOFF_TABLE, new Random(1)).play().getScore(0);
+    }
+
+    /**
+     * Passes to the strategy a view of the state, which does not override the queries about the best fields
+     */
+    private static final class ScanningPlayer extends Player {
+
+        private final Player strategy;
+        private final ScanningView view = new ScanningView();
+
+        private ScanningPlayer(Player strategy) {
+            this.strategy = strategy;
+        }
+
+        @Override
+        public void reset(Random random) {
+            strategy.reset(random);
+        }
+
+        @Override
+        public int move(int opponentLastMove, int xA, int xB, int xC) {
+            return strategy.move(opponentLastMove, xA, xB, xC);
+        }
+
+        @Override
+        public int move(GameState state) {
+            view.state = state;
+            return strategy.move(view);
+        }
+
+    }
+
+    private static final class ScanningView implements GameState {
+
+        private GameState state;
+
+        @Override
+        public int getX(int field) {
+            return state.getX(field);
+        }
+
+        @Override
+        public int getOpponentLastMove() {
+            return state.getOpponentLastMove();
+        }
+
+        @Override
+        public int getMyLastMove() {
+            return state.getMyLastMove();
+        }
+
+        @Override
+        public int getFieldCount() {
+            return state.getFieldCount();
+        }
+
+    }
+
+}
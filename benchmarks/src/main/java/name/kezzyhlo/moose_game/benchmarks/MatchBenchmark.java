@@ -0,0 +1,57 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.Match;
+import name.kezzyhlo.moose_game.players.Player;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the time of a full match for each pair of bundled strategies,
+ * with and without skipping of periodic matches
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchBenchmark {
+
+    @Param({
+            "AlwaysSamePlayer", "BestFieldPlayer", "CoopPlayer", "CopycatPlayer",
+            "MixedBestCopyPlayer", "RandomNonRepeatablePlayer", "RandomPlayer",
+    })
+    public String strategy1;
+
+    @Param({
+            "AlwaysSamePlayer", "BestFieldPlayer", "CoopPlayer", "CopycatPlayer",
+            "MixedBestCopyPlayer", "RandomNonRepeatablePlayer", "RandomPlayer",
+    })
+    public String strategy2;
+
+    @Param({"1000"})
+    public int rounds;
+
+    @Param({"true", "false"})
+    public boolean fastForward;
+
+    private Player player1;
+    private Player player2;
+
+    @Setup
+    public void setUp() {
+        player1 = Strategies.create(strategy1);
+        player2 = Strategies.create(strategy2);
+    }
+
+    @Benchmark
+    public void match(Blackhole blackhole) {
+        Match match = new Match(player1, player2, rounds).setFastForward(fastForward).play();
+        blackhole.consume(match.getScore1());
+        blackhole.consume(match.getScore2());
+    }
+
+}
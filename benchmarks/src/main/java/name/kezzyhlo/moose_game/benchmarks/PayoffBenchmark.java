@@ -0,0 +1,48 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.Tournament;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the cost of payoff calculation, both through the table and directly through the vegetation function
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PayoffBenchmark {
+
+    /**
+     * X value of the field, on which the move is made
+     */
+    @Param({"0", "1", "5", "2000"})
+    public int fieldX;
+
+    private int[] x;
+
+    @Setup
+    public void setUp() {
+        x = new int[] {-1, fieldX, 1, 1};
+    }
+
+    @Benchmark
+    public double payoff() {
+        return Tournament.payoff(x, 1, 2);
+    }
+
+    @Benchmark
+    public double payoffTableGain() {
+        return Tournament.PAYOFF_TABLE.gain(x[1]);
+    }
+
+    @Benchmark
+    public double vegetationAmount() {
+        return Tournament.vegetationAmount(x[1]) - Tournament.vegetationAmount(0);
+    }
+
+}
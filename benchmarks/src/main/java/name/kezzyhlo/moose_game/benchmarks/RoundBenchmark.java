@@ -0,0 +1,46 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.Match;
+import name.kezzyhlo.moose_game.players.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the average cost of one round: two moves, two payoffs and the update of fields.
+ * The match is long enough for the cost of resetting players to be negligible,
+ * and every round is played, even when the match becomes periodic.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class RoundBenchmark {
+
+    /**
+     * Amount of rounds in the measured match
+     */
+    private static final int ROUNDS = 10_000;
+
+    @Param({"BestFieldPlayer", "CoopPlayer"})
+    public String strategy;
+
+    private Player player1;
+    private Player player2;
+
+    @Setup
+    public void setUp() {
+        player1 = Strategies.create(strategy);
+        player2 = Strategies.create(strategy);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROUNDS)
+    public double round() {
+        return new Match(player1, player2, ROUNDS).setFastForward(false).play().getScore1();
+    }
+
+}
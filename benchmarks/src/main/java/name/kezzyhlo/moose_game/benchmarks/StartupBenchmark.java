@@ -0,0 +1,129 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.CommonsMatch;
+import name.kezzyhlo.moose_game.Tournament;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures the wall time of one run of the game in a new process, from its start to its exit.
+ *
+ * {@code program=CommonsMatch} plays one short match of two players, so its time is mostly the startup,
+ * while {@code program=Tournament} plays the whole default tournament.
+ * With {@code launcher=appcds}, the classes, loaded by the first run, are dumped into an AppCDS archive
+ * before the measurement, and then mapped from it by every run.
+ * With {@code launcher=native}, the image, built by {@code mvn -Pnative package}, is run instead of the JVM.
+ * This launcher has not been run yet, since the image has not been built.
+ * It runs only the tournament, and its path is given by the {@code moose.nativeImage} property:
+ * {@code -p launcher=native -p program=Tournament -jvmArgsAppend -Dmoose.nativeImage=core/target/moose-game}
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    /**
+     * Seed of every run, fixed so that each run plays the same matches
+     */
+    private static final String SEED = "42";
+
+    /**
+     * Default path of the native image, relative to the root of the project
+     */
+    private static final String NATIVE_IMAGE = "core/target/moose-game";
+
+    @Param({"jvm", "appcds"})
+    public String launcher;
+
+    @Param({"CommonsMatch", "Tournament"})
+    public String program;
+
+    private List<String> command;
+
+    private Path archive;
+
+    @Setup
+    public void setUp() throws IOException, InterruptedException {
+        List<String> arguments = program.equals("Tournament")
+                ? List.of(Tournament.class.getName(), SEED, "-")
+                : List.of(CommonsMatch.class.getName(), SEED, "3", "2");
+        command = new ArrayList<>();
+        switch (launcher) {
+            case "jvm":
+                command.addAll(java());
+                break;
+            case "appcds":
+                archive = Files.createTempFile("moose-game", ".jsa");
+                Files.delete(archive);
+                List<String> dump = new ArrayList<>(java());
+                dump.add("-XX:ArchiveClassesAtExit=" + archive);
+                dump.addAll(arguments);
+                execute(dump);
+                command.addAll(java());
+                command.add("-XX:SharedArchiveFile=" + archive);
+                break;
+            case "native":
+                if (!program.equals("Tournament")) {
+                    throw new IllegalArgumentException("The native image runs only the tournament");
+                }
+                command.add(Paths.get(System.getProperty("moose.nativeImage", NATIVE_IMAGE)).toAbsolutePath().toString());
+                command.addAll(arguments.subList(1, arguments.size()));
+                return;
+            default:
+                throw new IllegalArgumentException("Unknown launcher " + launcher);
+        }
+        command.addAll(arguments);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (archive != null) {
+            Files.deleteIfExists(archive);
+        }
+    }
+
+    @Benchmark
+    public int run() throws IOException, InterruptedException {
+        return execute(command);
+    }
+
+    /**
+     * @return Command, which starts the JVM of this benchmark with the same class path, but without its options
+     */
+    private static List<String> java() {
+        return List.of(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path")
+        );
+    }
+
+    /**
+     * Runs the command, discarding its output
+     *
+     * @return Exit code of the process
+     * @throws IllegalStateException if the process fails
+     */
+    private static int execute(List<String> command) throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .redirectError(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        int exitCode = process.waitFor();
+        if (exitCode != 0) {
+            throw new IllegalStateException("Exit code " + exitCode + " of " + String.join(" ", command));
+        }
+        return exitCode;
+    }
+
+}
@@ -0,0 +1,36 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.players.Player;
+import name.kezzyhlo.moose_game.players.StrategyRegistry;
+
+
+/**
+ * Helper for creating strategies by their simple class names, which are used as benchmark parameters
+ */
+final class Strategies {
+
+    /**
+     * No instances needed for this class
+     */
+    private Strategies() {}
+
+    /**
+     * Package, which contains all bundled strategies
+     */
+    private static final String PLAYERS_PACKAGE = "name.kezzyhlo.moose_game.players.";
+
+    /**
+     * Creates new instance of the bundled strategy
+     *
+     * @param simpleName Simple name of the class from {@code players} package, like {@code CoopPlayer}
+     * @return New player instance
+     */
+    static Player create(String simpleName) {
+        try {
+            return StrategyRegistry.create(PLAYERS_PACKAGE + simpleName);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Unknown strategy " + simpleName, e);
+        }
+    }
+
+}
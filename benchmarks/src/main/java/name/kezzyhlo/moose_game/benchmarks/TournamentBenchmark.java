@@ -0,0 +1,81 @@
+package name.kezzyhlo.moose_game.benchmarks;
+
+import name.kezzyhlo.moose_game.ParallelTournament;
+import name.kezzyhlo.moose_game.Random;
+import name.kezzyhlo.moose_game.RoundRobinSchedule;
+import name.kezzyhlo.moose_game.ScoreMatrix;
+import name.kezzyhlo.moose_game.Tournament;
+import name.kezzyhlo.moose_game.players.Player;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Measures end-to-end throughput of the tournament of {@link Tournament#createPlayers()}, in matches per second,
+ * for both ordered and unordered round-robin schedules.
+ * With {@code fastForward=false}, every round of periodic matches is played, so the round loop is not hidden
+ * by skipping of cycles
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TournamentBenchmark {
+
+    /**
+     * Amount of default players. It has to be a constant for {@link OperationsPerInvocation}
+     */
+    private static final int PLAYERS = 28;
+
+    /**
+     * Amount of matches in the tournament of default players
+     */
+    private static final int MATCHES = PLAYERS * (PLAYERS - 1);
+
+    /**
+     * Seed of the tournament, fixed so that each invocation plays the same matches
+     */
+    private static final long SEED = 42;
+
+    @Param({"100", "1000"})
+    public int rounds;
+
+    @Param({"true", "false"})
+    public boolean fastForward;
+
+    private List<Player> players;
+
+    @Setup
+    public void setUp() {
+        players = Tournament.createPlayers();
+        if (players.size() != PLAYERS) {
+            throw new IllegalStateException("Expected " + PLAYERS + " players, got " + players.size());
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MATCHES)
+    public ScoreMatrix orderedPairs() {
+        return new ParallelTournament(players, rounds, Tournament.PAYOFF_TABLE, new Random(SEED))
+                .setSchedule(RoundRobinSchedule.orderedPairs(PLAYERS, 1))
+                .setFastForward(fastForward)
+                .play();
+    }
+
+    /**
+     * Plays half as many matches as {@link TournamentBenchmark#orderedPairs()} for the same tournament
+     */
+    @Benchmark
+    @OperationsPerInvocation(MATCHES / 2)
+    public ScoreMatrix unorderedPairs() {
+        return new ParallelTournament(players, rounds, Tournament.PAYOFF_TABLE, new Random(SEED))
+                .setSchedule(RoundRobinSchedule.unorderedPairs(PLAYERS, 1))
+                .setFastForward(fastForward)
+                .play();
+    }
+
+}
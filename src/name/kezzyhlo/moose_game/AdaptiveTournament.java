@@ -0,0 +1,225 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.Arrays;
+import java.util.List;
+
+
+/**
+ * Tournament, which replicates matches only where it is needed to get a trustworthy ranking.
+ *
+ * First, each pair of players plays once, like in the usual round robin.
+ * Then, in each batch, only unsettled players play more matches against uniformly chosen opponents.
+ * A player is settled, when the 95% confidence interval of its mean payoff per round is narrow enough,
+ * or when its interval does not overlap with the intervals of its neighbours in the ranking,
+ * so its place is already known. Players, whose places are contested, get all the remaining effort.
+ *
+ * Results of additional matches are credited only to the player, for whom the match was scheduled,
+ * so that the mean of each player is still the average payoff against a uniformly chosen opponent,
+ * and the means of different players remain comparable.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AdaptiveTournament {
+
+    /**
+     * Amount of matches, which each unsettled player plays in each batch
+     */
+    private static final int MATCHES_PER_BATCH = 8;
+
+    /**
+     * Prototypes of the players
+     */
+    private final List<Player> players;
+
+    /**
+     * Amount of rounds in each match
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Table, which is used to calculate payoffs
+     */
+    private final PayoffTable payoffs;
+
+    /**
+     * Master random generator. Each batch gets its own generator derived from it
+     */
+    private final Random random;
+
+    /**
+     * Players are settled, when the half-width of their confidence interval is not more than this value
+     */
+    private double targetInterval = 0.01;
+
+    /**
+     * Tournament stops after this amount of matches, even if some players are not settled
+     */
+    private long maxMatches = Long.MAX_VALUE;
+
+    /**
+     * Limits of the time of moves in all matches, or {@code null}
+     */
+    private TimeBudget timeBudget = null;
+
+    /**
+     * Amount of matches, played by the last {@link AdaptiveTournament#play()}
+     */
+    private long matchesPlayed = 0;
+
+    /**
+     * Creates the tournament, but does not play it
+     *
+     * @param players Prototypes of the players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Master random generator
+     */
+    public AdaptiveTournament(List<Player> players, int numberOfRounds, PayoffTable payoffs, Random random) {
+        this.players = players;
+        this.numberOfRounds = numberOfRounds;
+        this.payoffs = payoffs;
+        this.random = random;
+    }
+
+    /**
+     * Sets the precision, which is enough for each player. By default, it is {@code 0.01}
+     *
+     * @param targetInterval Half-width of the 95% confidence interval of the mean payoff per round
+     * @return this tournament, for convenience
+     */
+    public AdaptiveTournament setTargetInterval(double targetInterval) {
+        this.targetInterval = targetInterval;
+        return this;
+    }
+
+    /**
+     * Limits the total amount of matches. By default, there is no limit
+     *
+     * @param maxMatches Maximal amount of matches, including the initial round robin
+     * @return this tournament, for convenience
+     */
+    public AdaptiveTournament setMaxMatches(long maxMatches) {
+        this.maxMatches = maxMatches;
+        return this;
+    }
+
+    /**
+     * Sets the limits of the time, which players may spend on their moves in each match
+     *
+     * @param timeBudget The limits, or {@code null} if players should not be limited
+     * @return this tournament, for convenience
+     * @see ParallelTournament#setTimeBudget(TimeBudget)
+     */
+    public AdaptiveTournament setTimeBudget(TimeBudget timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
+
+    /**
+     * Plays the initial round robin and then batches of additional matches,
+     * until all players are settled or the limit of matches is reached
+     *
+     * @return Results of all players, with their confidence intervals
+     */
+    public Standings play() {
+        Standings standings = new Standings(players.size());
+        Random pairing = random.split(0);
+        ParallelTournament initial = new ParallelTournament(players, numberOfRounds, payoffs, random.split(1));
+        initial.setEvents(null).setTimeBudget(timeBudget).play(standings);
+        matchesPlayed = (long) players.size() * (players.size() - 1) / 2;
+
+        for (long batch = 2; matchesPlayed < maxMatches; batch++) {
+            int[] unsettled = unsettledPlayers(standings);
+            if (unsettled.length == 0) {
+                break;
+            }
+
+            int size = (int) Math.min((long) unsettled.length * MATCHES_PER_BATCH, maxMatches - matchesPlayed);
+            int[] players1 = new int[size], players2 = new int[size];
+            for (int k = 0; k < size; k++) {
+                int player = unsettled[k % unsettled.length];
+                int opponent = pairing.nextInt(players.size() - 1);
+                players1[k] = player;
+                players2[k] = opponent >= player ? opponent + 1 : opponent;
+            }
+
+            double[][] scores = new ParallelTournament(players, numberOfRounds, payoffs, random.split(batch))
+                    .setEvents(null)
+                    .setTimeBudget(timeBudget)
+                    .setSchedule(new FocusSchedule(players1, players2))
+                    .playMatches();
+            for (int k = 0; k < size; k++) {
+                standings.add(players1[k], scores[0][k] / numberOfRounds);
+            }
+            matchesPlayed += size;
+        }
+        return standings;
+    }
+
+    /**
+     * Finds players, which are neither precise enough nor separated from their neighbours in the ranking
+     */
+    private int[] unsettledPlayers(Standings standings) {
+        int[] ranking = standings.ranking();
+        int[] unsettled = new int[ranking.length];
+        int count = 0;
+        for (int r = 0; r < ranking.length; r++) {
+            int player = ranking[r];
+            if (standings.getConfidenceInterval(player) <= targetInterval) continue;
+            boolean overlapsAbove = r > 0 && overlap(standings, ranking[r - 1], player);
+            boolean overlapsBelow = r < ranking.length - 1 && overlap(standings, player, ranking[r + 1]);
+            if (overlapsAbove || overlapsBelow) {
+                unsettled[count++] = player;
+            }
+        }
+        return Arrays.copyOf(unsettled, count);
+    }
+
+    /**
+     * Checks, whether the confidence intervals of the better and the worse player overlap
+     */
+    private static boolean overlap(Standings standings, int better, int worse) {
+        double lowerBound = standings.getMean(better) - standings.getConfidenceInterval(better);
+        double upperBound = standings.getMean(worse) + standings.getConfidenceInterval(worse);
+        return lowerBound <= upperBound;
+    }
+
+    /**
+     * @return Amount of matches, played by the last {@link AdaptiveTournament#play()}
+     */
+    public long getMatchesPlayed() {
+        return matchesPlayed;
+    }
+
+    /**
+     * Additional matches of one batch
+     */
+    private static final class FocusSchedule implements Schedule {
+
+        private final int[] players1;
+        private final int[] players2;
+
+        private FocusSchedule(int[] players1, int[] players2) {
+            this.players1 = players1;
+            this.players2 = players2;
+        }
+
+        @Override
+        public int size() {
+            return players1.length;
+        }
+
+        @Override
+        public int player1(int match) {
+            return players1[match];
+        }
+
+        @Override
+        public int player2(int match) {
+            return players2[match];
+        }
+
+    }
+
+}
@@ -0,0 +1,342 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+
+/**
+ * Writes events of matches to a file in the background thread.
+ *
+ * Each thread playing matches writes records into its own buffer, without any synchronization.
+ * Full buffers are handed over to the writer thread, which writes them to the file,
+ * while the playing thread continues with the buffer from the pool.
+ * Records of different matches can be interleaved, so each record contains the id of its match.
+ *
+ * Records in {@link Format#CSV} format are lines of comma-separated values:
+ * <pre>
+ * S,matchId,numberOfRounds,player1,player2
+ * R,matchId,round,xA,xB,xC,move1,move2,score1,score2
+ * E,matchId,score1,score2
+ * </pre>
+ * Records in {@link Format#BINARY} format have the same fields in big-endian order:
+ * record type as one byte, {@code long} id, {@code int} values, moves as bytes, scores as {@code double},
+ * and player names as {@code short} length followed by UTF-8 bytes.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class AsyncFileEventSink implements EventSink, Closeable {
+
+    /**
+     * Format of the records in the file
+     */
+    public enum Format {
+
+        /**
+         * Comma-separated text, one record per line
+         */
+        CSV,
+
+        /**
+         * Compact binary records
+         */
+        BINARY,
+
+    }
+
+    /**
+     * Size of each buffer
+     */
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Buffer is handed over to the writer, when less than this amount of bytes are left in it.
+     * Should be more than the size of any record
+     */
+    private static final int MAX_RECORD_SIZE = 1024;
+
+    /**
+     * Amount of buffers, which can wait for the writer.
+     * If the writer is slower, playing threads will wait for it
+     */
+    private static final int QUEUE_SIZE = 64;
+
+    /**
+     * Marker, which tells the writer thread to stop
+     */
+    private static final ByteBuffer END_OF_EVENTS = ByteBuffer.allocate(0);
+
+    private static final byte MATCH_STARTED = 'S';
+    private static final byte ROUND_PLAYED = 'R';
+    private static final byte MATCH_FINISHED = 'E';
+
+    private final Format format;
+    private final FileChannel channel;
+
+    /**
+     * Full buffers, waiting to be written
+     */
+    private final BlockingQueue<ByteBuffer> written = new ArrayBlockingQueue<>(QUEUE_SIZE);
+
+    /**
+     * Already written buffers, which can be reused
+     */
+    private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Buffers of all threads, so that they can be flushed on {@link AsyncFileEventSink#close()}
+     */
+    private final Queue<ThreadBuffer> threadBuffers = new ConcurrentLinkedQueue<>();
+
+    private final ThreadLocal<ThreadBuffer> threadBuffer = ThreadLocal.withInitial(() -> {
+        ThreadBuffer buffer = new ThreadBuffer();
+        threadBuffers.add(buffer);
+        return buffer;
+    });
+
+    private final Thread writer;
+
+    /**
+     * The first error of the writer thread, rethrown on {@link AsyncFileEventSink#close()}
+     */
+    private volatile IOException writeError;
+
+    /**
+     * Creates the file (or truncates existing one) and starts the writer thread
+     *
+     * @param file The file to write events to
+     * @param format Format of the records
+     * @throws IOException if the file can not be opened
+     */
+    public AsyncFileEventSink(Path file, Format format) throws IOException {
+        this.format = format;
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        );
+        this.writer = new Thread(this::writeBuffers, "moose-game-event-writer");
+        this.writer.start();
+    }
+
+    /**
+     * Chooses the format by extension of the file: {@code .csv} files are written as {@link Format#CSV},
+     * all others as {@link Format#BINARY}
+     *
+     * @param file The file to write events to
+     * @return New sink
+     * @throws IOException if the file can not be opened
+     */
+    public static AsyncFileEventSink forFile(Path file) throws IOException {
+        boolean csv = file.getFileName().toString().toLowerCase().endsWith(".csv");
+        return new AsyncFileEventSink(file, csv ? Format.CSV : Format.BINARY);
+    }
+
+    @Override
+    public MatchListener matchStarted(long matchId, Player player1, Player player2, int numberOfRounds) {
+        ThreadBuffer buffer = threadBuffer.get();
+        buffer.startRecord(MATCH_STARTED, matchId);
+        buffer.putInt(numberOfRounds);
+        buffer.putString(player1.toString());
+        buffer.putString(player2.toString());
+        buffer.endRecord();
+
+        return new MatchListener() {
+
+            @Override
+            public void roundPlayed(int round, int[] x, int move1, int move2, double score1, double score2) {
+                buffer.startRecord(ROUND_PLAYED, matchId);
+                buffer.putInt(round);
+                for (int j = 1; j < x.length; j++) {
+                    buffer.putInt(x[j]);
+                }
+                buffer.putMove(move1);
+                buffer.putMove(move2);
+                buffer.putDouble(score1);
+                buffer.putDouble(score2);
+                buffer.endRecord();
+            }
+
+            @Override
+            public void matchFinished(double score1, double score2) {
+                buffer.startRecord(MATCH_FINISHED, matchId);
+                buffer.putDouble(score1);
+                buffer.putDouble(score2);
+                buffer.endRecord();
+            }
+
+        };
+    }
+
+    /**
+     * Flushes buffers of all threads, waits for the writer thread and closes the file.
+     * Should be called when no matches are being played anymore
+     *
+     * @throws IOException if some of the records could not be written
+     */
+    @Override
+    public void close() throws IOException {
+        for (ThreadBuffer buffer : threadBuffers) {
+            buffer.flush();
+        }
+        put(END_OF_EVENTS);
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (writeError != null) {
+            throw writeError;
+        }
+    }
+
+    /**
+     * Body of the writer thread
+     */
+    private void writeBuffers() {
+        while (true) {
+            ByteBuffer buffer;
+            try {
+                buffer = written.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            if (buffer == END_OF_EVENTS) {
+                return;
+            }
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                if (writeError == null) {
+                    writeError = e;
+                }
+            }
+            buffer.clear();
+            free.add(buffer);
+        }
+    }
+
+    private void put(ByteBuffer buffer) {
+        try {
+            written.put(buffer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("Interrupted while writing events", e));
+        }
+    }
+
+    /**
+     * Buffer of one thread, which knows how to write fields in the chosen {@link Format}
+     */
+    private final class ThreadBuffer {
+
+        private ByteBuffer buffer = newBuffer();
+
+        private ByteBuffer newBuffer() {
+            ByteBuffer reused = free.poll();
+            return reused != null ? reused : ByteBuffer.allocateDirect(BUFFER_SIZE);
+        }
+
+        void startRecord(byte type, long matchId) {
+            if (buffer.remaining() < MAX_RECORD_SIZE) {
+                flush();
+            }
+            if (format == Format.CSV) {
+                buffer.put(type);
+                putCsvLong(matchId);
+            } else {
+                buffer.put(type);
+                buffer.putLong(matchId);
+            }
+        }
+
+        void endRecord() {
+            if (format == Format.CSV) {
+                buffer.put((byte) '\n');
+            }
+        }
+
+        void putInt(int value) {
+            if (format == Format.CSV) {
+                putCsvLong(value);
+            } else {
+                buffer.putInt(value);
+            }
+        }
+
+        void putMove(int move) {
+            if (format == Format.CSV) {
+                putCsvLong(move);
+            } else {
+                buffer.put((byte) move);
+            }
+        }
+
+        void putDouble(double value) {
+            if (format == Format.CSV) {
+                buffer.put((byte) ',');
+                putAscii(Double.toString(value));
+            } else {
+                buffer.putDouble(value);
+            }
+        }
+
+        void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            int length = Math.min(bytes.length, MAX_RECORD_SIZE / 4);
+            if (format == Format.CSV) {
+                buffer.put((byte) ',');
+                buffer.put(bytes, 0, length);
+            } else {
+                buffer.putShort((short) length);
+                buffer.put(bytes, 0, length);
+            }
+        }
+
+        /**
+         * Writes comma and the decimal digits of the value, without creating strings
+         */
+        private void putCsvLong(long value) {
+            buffer.put((byte) ',');
+            if (value < 0) {
+                buffer.put((byte) '-');
+                value = -value;
+            }
+            long divisor = 1;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                buffer.put((byte) ('0' + value / divisor % 10));
+            }
+        }
+
+        private void putAscii(String value) {
+            for (int i = 0; i < value.length(); i++) {
+                buffer.put((byte) value.charAt(i));
+            }
+        }
+
+        void flush() {
+            if (buffer.position() > 0) {
+                put(buffer);
+                buffer = newBuffer();
+            }
+        }
+
+    }
+
+}
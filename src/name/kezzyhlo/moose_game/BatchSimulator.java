@@ -0,0 +1,268 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Simulates many matches of the same pair of strategies in lockstep.
+ *
+ * Unlike {@link Match}, which keeps the state of one match and calls players once per round,
+ * this simulator keeps X values, last moves and scores of all matches in flat primitive arrays
+ * (struct of arrays), asks each {@link BatchStrategy} for the moves of all matches at once,
+ * and then updates payoffs and fields of all matches in one tight loop.
+ * Each match has its own small xorshift generator for each side, seeded from the generator of the side,
+ * and all of them are advanced at once, so the strategies do not call any generator.
+ *
+ * Matches are not identical to the ones played by {@link Match} with the same seed,
+ * because random values are drawn in different order, but they follow the same rules.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BatchSimulator {
+
+    private final BatchStrategy strategy1;
+    private final BatchStrategy strategy2;
+    private final int matches;
+    private final PayoffTable payoffs;
+    private final Random random1;
+    private final Random random2;
+
+    // state of all matches
+
+    private final int[] xA;
+    private final int[] xB;
+    private final int[] xC;
+    private int[] moves1;
+    private int[] moves2;
+    private int[] lastMoves1;
+    private int[] lastMoves2;
+    private final int[] randomValues1;
+    private final int[] randomValues2;
+    private final int[] state1;
+    private final int[] state2;
+    private final double[] scores1;
+    private final double[] scores2;
+
+    /**
+     * Creates the simulator and allocates arrays for all matches
+     *
+     * @param strategy1 Strategy of the first player in all matches
+     * @param strategy2 Strategy of the second player in all matches
+     * @param matches Amount of matches
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Random generator, from which generators of both strategies are derived
+     */
+    public BatchSimulator(
+            BatchStrategy strategy1, BatchStrategy strategy2, int matches, PayoffTable payoffs, Random random
+    ) {
+        this.strategy1 = strategy1;
+        this.strategy2 = strategy2;
+        this.matches = matches;
+        this.payoffs = payoffs;
+        this.random1 = random.split(1);
+        this.random2 = random.split(2);
+        xA = new int[matches];
+        xB = new int[matches];
+        xC = new int[matches];
+        moves1 = new int[matches];
+        moves2 = new int[matches];
+        lastMoves1 = new int[matches];
+        lastMoves2 = new int[matches];
+        randomValues1 = new int[matches];
+        randomValues2 = new int[matches];
+        state1 = new int[matches];
+        state2 = new int[matches];
+        scores1 = new double[matches];
+        scores2 = new double[matches];
+    }
+
+    /**
+     * Resets all matches and plays {@code numberOfRounds} rounds in each of them
+     *
+     * @param numberOfRounds Amount of rounds in each match
+     * @return this simulator, for convenience
+     */
+    public BatchSimulator play(int numberOfRounds) {
+
+        // initialize strategies and the games
+        for (int m = 0; m < matches; m++) {
+            xA[m] = 1;
+            xB[m] = 1;
+            xC[m] = 1;
+            lastMoves1[m] = 0;
+            lastMoves2[m] = 0;
+            state1[m] = 0;
+            state2[m] = 0;
+            scores1[m] = 0;
+            scores2[m] = 0;
+        }
+        strategy1.reset(matches, state1, random1);
+        strategy2.reset(matches, state2, random2);
+        seed(randomValues1, random1);
+        seed(randomValues2, random2);
+
+        // X value grows by at most 1 each round, so if the table is big enough, it can be used directly
+        double[] fastGains = payoffs.size() > numberOfRounds + 1 ? payoffs.gains() : null;
+
+        for (int i = 0; i < numberOfRounds; i++) {
+
+            // get moves of all matches
+            advance(randomValues1);
+            advance(randomValues2);
+            strategy1.moves(matches, xA, xB, xC, lastMoves2, state1, moves1, randomValues1);
+            strategy2.moves(matches, xA, xB, xC, lastMoves1, state2, moves2, randomValues2);
+
+            // update scores and fields of all matches
+            if (fastGains != null) {
+                updateFast(fastGains);
+            } else {
+                update();
+            }
+
+            // save moves for later, the old last moves are overwritten in the next round
+            int[] moves = lastMoves1;
+            lastMoves1 = moves1;
+            moves1 = moves;
+            moves = lastMoves2;
+            lastMoves2 = moves2;
+            moves2 = moves;
+        }
+
+        return this;
+    }
+
+    /**
+     * Seeds the xorshift generator of each match. Its state must not be zero
+     *
+     * @param values States of the generators of one side
+     * @param random Random generator of this side
+     */
+    private void seed(int[] values, Random random) {
+        for (int m = 0; m < matches; m++) {
+            values[m] = (int) (random.nextLong() >>> 32) | 1;
+        }
+    }
+
+    /**
+     * Advances the xorshift generator of each match, whose state is also its next random value.
+     * The loop has only shifts and exclusive ors, so the JIT compiler vectorizes it
+     *
+     * @param values States of the generators of one side
+     */
+    private void advance(int[] values) {
+        for (int m = 0; m < matches; m++) {
+            int value = values[m];
+            value ^= value << 13;
+            value ^= value >>> 17;
+            value ^= value << 5;
+            values[m] = value;
+        }
+    }
+
+    /**
+     * Updates scores and fields of all matches after the moves are made.
+     * Neighbouring matches usually have unrelated moves, so branches would be mispredicted all the time.
+     * That is why this method uses only bit masks: payoff of the move is taken from the table by the index,
+     * which is X of the chosen field, or {@code 0} (where the payoff is always {@code 0})
+     * if the moves are the same or invalid. Lookups in the table can not be vectorized,
+     * so fields are updated in a separate loop of {@code int} arithmetic, which the JIT compiler vectorizes.
+     *
+     * @param gains Precomputed payoffs, which are known to cover all X values
+     */
+    private void updateFast(double[] gains) {
+        int[] moves1 = this.moves1, moves2 = this.moves2, xA = this.xA, xB = this.xB, xC = this.xC;
+        double[] scores1 = this.scores1, scores2 = this.scores2;
+        for (int m = 0; m < matches; m++) {
+            int move1 = moves1[m], move2 = moves2[m];
+            int a = xA[m], b = xB[m], c = xC[m];
+            int differ = nonZeroMask(move1 ^ move2);
+            scores1[m] += gains[differ & ((a & zeroMask(move1 ^ 1)) | (b & zeroMask(move1 ^ 2)) | (c & zeroMask(move1 ^ 3)))];
+            scores2[m] += gains[differ & ((a & zeroMask(move2 ^ 1)) | (b & zeroMask(move2 ^ 2)) | (c & zeroMask(move2 ^ 3)))];
+        }
+        for (int m = 0; m < matches; m++) {
+            int move1 = moves1[m], move2 = moves2[m];
+            xA[m] = updateField(xA[m], zeroMask(move1 ^ 1) | zeroMask(move2 ^ 1));
+            xB[m] = updateField(xB[m], zeroMask(move1 ^ 2) | zeroMask(move2 ^ 2));
+            xC[m] = updateField(xC[m], zeroMask(move1 ^ 3) | zeroMask(move2 ^ 3));
+        }
+    }
+
+    /**
+     * Decreases X of the field by 1, if someone has chosen it, and increases it by 1 otherwise.
+     * X does not become negative
+     *
+     * @param x X of the field
+     * @param chosen All ones if the field was chosen, {@code 0} otherwise
+     * @return New X of the field
+     */
+    private static int updateField(int x, int chosen) {
+        int value = x + 1 + (chosen << 1);
+        return value & ~(value >> 31);
+    }
+
+    /**
+     * @return All ones if {@code value} is not zero, {@code 0} otherwise
+     */
+    private static int nonZeroMask(int value) {
+        return (value | -value) >> 31;
+    }
+
+    /**
+     * @return All ones if {@code value} is zero, {@code 0} otherwise
+     */
+    private static int zeroMask(int value) {
+        return ~nonZeroMask(value);
+    }
+
+    /**
+     * Updates scores and fields of all matches after the moves are made,
+     * when X values can be outside of the payoff table
+     */
+    private void update() {
+        for (int m = 0; m < matches; m++) {
+            updateMatch(m, moves1[m], moves2[m], xA[m], xB[m], xC[m]);
+        }
+    }
+
+    private void updateMatch(int m, int move1, int move2, int a, int b, int c) {
+        if (move1 != move2) {
+            scores1[m] += gain(move1, a, b, c);
+            scores2[m] += gain(move2, a, b, c);
+        }
+
+        xA[m] = Math.max(0, a + 1 - (move1 == 1 || move2 == 1 ? 2 : 0));
+        xB[m] = Math.max(0, b + 1 - (move1 == 2 || move2 == 2 ? 2 : 0));
+        xC[m] = Math.max(0, c + 1 - (move1 == 3 || move2 == 3 ? 2 : 0));
+    }
+
+    /**
+     * Payoff of eating alone on the field, or {@code 0} for invalid moves
+     */
+    private double gain(int move, int a, int b, int c) {
+        switch (move) {
+            case 1: return payoffs.gain(a);
+            case 2: return payoffs.gain(b);
+            case 3: return payoffs.gain(c);
+            default: return 0;
+        }
+    }
+
+    /**
+     * @return Amount of simulated matches
+     */
+    public int getMatches() {
+        return matches;
+    }
+
+    /**
+     * @return Total payoffs of the first player in each match. The array is reused by the next {@link BatchSimulator#play(int)}
+     */
+    public double[] getScores1() {
+        return scores1;
+    }
+
+    /**
+     * @return Total payoffs of the second player in each match. The array is reused by the next {@link BatchSimulator#play(int)}
+     */
+    public double[] getScores2() {
+        return scores2;
+    }
+
+}
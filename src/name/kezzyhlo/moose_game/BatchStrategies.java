@@ -0,0 +1,279 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.*;
+
+
+/**
+ * This class contains {@link BatchStrategy} implementations of bundled strategies,
+ * and the adapter, which allows to use any {@link Player} in {@link BatchSimulator}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class BatchStrategies {
+
+    /**
+     * No instances needed for this class
+     */
+    private BatchStrategies() {}
+
+    /**
+     * Amount of values of {@link BatchStrategies#die(int)}, which is divisible by both amounts of moves,
+     * from which {@link CopycatPlayer} chooses at random
+     */
+    private static final int DIE = 6;
+
+    /**
+     * Moves of {@link CopycatPlayer} for each last move of the opponent from {@code 0} to {@code 3},
+     * each combination of fields with zero X and each value of the {@link BatchStrategies#die(int)}
+     * (see {@link BatchStrategies#copycatIndex(int, int, int, int, int)})
+     */
+    private static final byte[] COPYCAT_MOVES = new byte[4 * 8 * DIE];
+    static {
+        for (int opponentLastMove = 0; opponentLastMove <= 3; opponentLastMove++) {
+            for (int zeros = 0; zeros < 8; zeros++) {
+                int[] x = {0, (zeros >> 2) ^ 1, ((zeros >> 1) & 1) ^ 1, (zeros & 1) ^ 1};
+                for (int die = 0; die < DIE; die++) {
+                    int move;
+                    if (opponentLastMove == 0) {
+                        move = 1 + die % 3;
+                    } else if (x[opponentLastMove] != 0) {
+                        move = opponentLastMove;
+                    } else {
+                        int move1 = (opponentLastMove != 1) ? 1 : 2;
+                        int move2 = 1 + 2 + 3 - opponentLastMove - move1;
+                        if (x[move1] == 0) {
+                            move = move2;
+                        } else if (x[move2] == 0) {
+                            move = move1;
+                        } else {
+                            move = (die % 2 + opponentLastMove) % 3 + 1;
+                        }
+                    }
+                    COPYCAT_MOVES[copycatIndex(opponentLastMove, x[1], x[2], x[3], die)] = (byte) move;
+                }
+            }
+        }
+    }
+
+    /**
+     * Batch version of {@link RandomPlayer}
+     */
+    public static final BatchStrategy RANDOM = (matches, xA, xB, xC, opponentLastMoves, state, moves, random) -> {
+        for (int m = 0; m < matches; m++) {
+            moves[m] = 1 + below(random[m], 3);
+        }
+    };
+
+    /**
+     * Batch version of {@link BestFieldPlayer}
+     */
+    public static final BatchStrategy BEST_FIELD = (matches, xA, xB, xC, opponentLastMoves, state, moves, random) -> {
+        for (int m = 0; m < matches; m++) {
+            moves[m] = bestFieldMove(xA[m], xB[m], xC[m], random[m]);
+        }
+    };
+
+    /**
+     * Batch version of {@link CopycatPlayer}. The move is taken from the table
+     */
+    public static final BatchStrategy COPYCAT = (matches, xA, xB, xC, opponentLastMoves, state, moves, random) -> {
+        for (int m = 0; m < matches; m++) {
+            moves[m] = copycatMove(opponentLastMoves[m], xA[m], xB[m], xC[m], random[m]);
+        }
+    };
+
+    /**
+     * Batch version of {@link MixedBestCopyPlayer}. Both moves are computed, and one of them is selected
+     * by the highest bit of the random value, while the moves use the bits below it
+     */
+    public static final BatchStrategy MIXED_BEST_COPY = (matches, xA, xB, xC, opponentLastMoves, state, moves, random) -> {
+        for (int m = 0; m < matches; m++) {
+            int bits = random[m];
+            int best = bestFieldMove(xA[m], xB[m], xC[m], bits << 1);
+            int copy = copycatMove(opponentLastMoves[m], xA[m], xB[m], xC[m], bits << 16);
+            moves[m] = bits < 0 ? copy : best;
+        }
+    };
+
+    /**
+     * Batch version of {@link AlwaysSamePlayer}. The chosen move is kept as the state
+     */
+    public static final BatchStrategy ALWAYS_SAME = new BatchStrategy() {
+
+        @Override
+        public void reset(int matches, int[] state, Random random) {
+            for (int m = 0; m < matches; m++) {
+                state[m] = random.nextMove();
+            }
+        }
+
+        @Override
+        public void moves(
+                int matches, int[] xA, int[] xB, int[] xC,
+                int[] opponentLastMoves, int[] state, int[] moves, int[] random
+        ) {
+            System.arraycopy(state, 0, moves, 0, matches);
+        }
+
+    };
+
+    /**
+     * The same move as {@link BestFieldPlayer#bestFieldMove(int, int, int, Random)}, made without branches
+     *
+     * @param random Random value, whose highest bits choose one of the best fields
+     */
+    private static int bestFieldMove(int xA, int xB, int xC, int random) {
+        int max = Math.max(xA, Math.max(xB, xC));
+        int isA = isZero(xA - max), isB = isZero(xB - max), isC = isZero(xC - max);
+        int skip = below(random, isA + isB + isC);
+        int pickA = isA & isZero(skip);
+        int pickB = isB & isZero(skip - isA);
+        return 3 - 2 * pickA - pickB;
+    }
+
+    /**
+     * The same move as {@link CopycatPlayer#copycatMove(int, int, int, int, Random)}, taken from the table
+     *
+     * @param random Random value, whose highest bits choose the move
+     */
+    private static int copycatMove(int opponentLastMove, int xA, int xB, int xC, int random) {
+        if (opponentLastMove < 0 || opponentLastMove > 3) {
+            opponentLastMove = 0;
+        }
+        return COPYCAT_MOVES[copycatIndex(opponentLastMove, xA, xB, xC, die(random))];
+    }
+
+    /**
+     * @return Index in the {@link BatchStrategies#COPYCAT_MOVES} for the valid or zero last move of the opponent
+     *         and non-negative values of X
+     */
+    private static int copycatIndex(int opponentLastMove, int xA, int xB, int xC, int die) {
+        int zeros = ((xA - 1) >>> 31 << 2) | ((xB - 1) >>> 31 << 1) | ((xC - 1) >>> 31);
+        return (opponentLastMove * 8 + zeros) * DIE + die;
+    }
+
+    /**
+     * @return {@code 1} if {@code value} is zero, {@code 0} otherwise
+     */
+    private static int isZero(int value) {
+        return ((value | -value) >>> 31) ^ 1;
+    }
+
+    /**
+     * Maps the highest 16 bits of the random value to the range by multiplication, without division.
+     * The result is biased by less than {@code bound / 2^16}, which is negligible for the bounds up to {@link BatchStrategies#DIE}
+     *
+     * @return Random value from {@code 0} (inclusive) to {@code bound} (exclusive)
+     */
+    private static int below(int random, int bound) {
+        return ((random >>> 16) * bound) >>> 16;
+    }
+
+    /**
+     * @return Random value from {@code 0} to {@link BatchStrategies#DIE} (exclusive), whose remainder of division
+     *         by {@code 2} or {@code 3} is uniformly distributed
+     */
+    private static int die(int random) {
+        return below(random, DIE);
+    }
+
+    /**
+     * Returns batch version of the strategy of the given player.
+     * For bundled strategies, specialized implementations are used,
+     * and for all others {@link PlayerBatchStrategy} with instances of the same class
+     *
+     * @param prototype Player, whose strategy is needed
+     * @return Batch version of the strategy
+     */
+    public static BatchStrategy forPlayer(Player prototype) {
+        Class<? extends Player> playerClass = prototype.getClass();
+        if (playerClass == RandomPlayer.class) return RANDOM;
+        if (playerClass == BestFieldPlayer.class) return BEST_FIELD;
+        if (playerClass == CopycatPlayer.class) return COPYCAT;
+        if (playerClass == MixedBestCopyPlayer.class) return MIXED_BEST_COPY;
+        if (playerClass == AlwaysSamePlayer.class) return ALWAYS_SAME;
+        return new PlayerBatchStrategy(prototype);
+    }
+
+    /**
+     * Adapter, which plays each match of the batch with its own instance of the player.
+     * It allows to simulate any strategy, but without any benefits of batching.
+     * Players are called by {@link Player#move(GameState)}, the same as in {@link Match},
+     * and the state of each match keeps the last move of its player
+     */
+    public static final class PlayerBatchStrategy implements BatchStrategy {
+
+        private final Player prototype;
+        private Player[] players = new Player[0];
+        private final BatchView view = new BatchView();
+
+        /**
+         * @param prototype Player, whose class is instantiated for each match
+         */
+        public PlayerBatchStrategy(Player prototype) {
+            this.prototype = prototype;
+        }
+
+        @Override
+        public void reset(int matches, int[] state, Random random) {
+            if (players.length != matches) {
+                players = new Player[matches];
+                for (int m = 0; m < matches; m++) {
+                    players[m] = ParallelTournament.newInstance(prototype);
+                }
+            }
+            for (int m = 0; m < matches; m++) {
+                players[m].reset(random.split(m));
+            }
+        }
+
+        @Override
+        public void moves(
+                int matches, int[] xA, int[] xB, int[] xC,
+                int[] opponentLastMoves, int[] state, int[] moves, int[] random
+        ) {
+            BatchView view = this.view;
+            for (int m = 0; m < matches; m++) {
+                view.set(xA[m], xB[m], xC[m], opponentLastMoves[m], state[m]);
+                int move = players[m].move(view);
+                moves[m] = move;
+                state[m] = move;
+            }
+        }
+
+    }
+
+    /**
+     * {@link GameState} of one match of the batch, which is filled before each move
+     */
+    private static final class BatchView implements GameState {
+
+        private final int[] x = new int[GameState.FIELDS + 1];
+        private int opponentLastMove;
+        private int myLastMove;
+
+        private void set(int xA, int xB, int xC, int opponentLastMove, int myLastMove) {
+            x[1] = xA;
+            x[2] = xB;
+            x[3] = xC;
+            this.opponentLastMove = opponentLastMove;
+            this.myLastMove = myLastMove;
+        }
+
+        @Override
+        public int getX(int field) {
+            return x[field];
+        }
+
+        @Override
+        public int getOpponentLastMove() {
+            return opponentLastMove;
+        }
+
+        @Override
+        public int getMyLastMove() {
+            return myLastMove;
+        }
+
+    }
+
+}
@@ -0,0 +1,43 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Strategy, which makes moves for many matches at once, for {@link BatchSimulator}.
+ * All values of the matches are kept in flat arrays, indexed by the number of the match,
+ * so the implementation should be a simple loop over them.
+ * Neighbouring matches are unrelated, so branches, which depend on the values of a match, are mispredicted
+ * all the time. The loop should rather compute all cases with {@code int} arithmetic and select the result
+ * by bit masks, or take it from a small precomputed table.
+ *
+ * @see BatchStrategies
+ */
+public interface BatchStrategy {
+
+    /**
+     * Called before the first round.
+     * Each match has one {@code int} of state, which is {@code 0} initially
+     *
+     * @param matches Amount of matches
+     * @param state State of this strategy for each match
+     * @param random Random generator of this side of the batch
+     */
+    default void reset(int matches, int[] state, Random random) {}
+
+    /**
+     * Makes moves for all matches of the batch
+     *
+     * @param matches Amount of matches
+     * @param xA The argument X for a field A, for each match
+     * @param xB The argument X for a field B, for each match
+     * @param xC The argument X for a field C, for each match
+     * @param opponentLastMoves The last move of the opponent, for each match, {@code 0} for the first round
+     * @param state State of this strategy for each match
+     * @param moves Array, to which the move for each match should be written
+     * @param random Random 32-bit value for each match, new in each round
+     */
+    void moves(
+            int matches, int[] xA, int[] xB, int[] xC,
+            int[] opponentLastMoves, int[] state, int[] moves, int[] random
+    );
+
+}
@@ -0,0 +1,213 @@
+package name.kezzyhlo.moose_game;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+
+/**
+ * Results of finished matches, saved to a memory-mapped file as soon as each match is over,
+ * so that a tournament, which was killed or crashed, can be resumed without playing them again.
+ *
+ * The file consists of a header and one fixed record per match of the {@link Schedule}, at the index of the match:
+ * <pre>
+ * header: magic (8 bytes), version (4), reserved (4), fingerprint (8), seed (8), amount of records (8)
+ * record: score1 (8 bytes), score2 (8), check (8)
+ * </pre>
+ * The check is a hash of the index and both scores, written after them.
+ * An empty record, or a record, which was only partially written when the process died, does not pass the check,
+ * so its match is simply played again. The fingerprint identifies the tournament, so results of a different
+ * tournament are never mixed in.
+ *
+ * Records are written directly into the mapped memory, so they survive the death of the process
+ * without any system calls. To survive the crash of the whole machine, they are forced to the disk
+ * every {@link Checkpoint#FORCE_EVERY} records and on {@link Checkpoint#close()}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Checkpoint implements Closeable {
+
+    /**
+     * Records are forced to the disk after each this amount of saved records
+     */
+    public static final int FORCE_EVERY = 1 << 12;
+
+    private static final long MAGIC = 0x4d4f4f5345434b50L; // "MOOSECKP"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 40;
+    private static final int RECORD_SIZE = 24;
+
+    /**
+     * Amount of records in each mapped chunk, so that each chunk is smaller than 2 GB
+     */
+    private static final int RECORDS_PER_CHUNK = 1 << 25;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+    private final AtomicLong saved = new AtomicLong();
+    private final long restored;
+
+    private Checkpoint(FileChannel channel, long size) throws IOException {
+        this.channel = channel;
+        this.size = size;
+        int chunkCount = (int) ((size + RECORDS_PER_CHUNK - 1) / RECORDS_PER_CHUNK);
+        this.chunks = new MappedByteBuffer[chunkCount];
+        for (int c = 0; c < chunkCount; c++) {
+            long records = Math.min(RECORDS_PER_CHUNK, size - (long) c * RECORDS_PER_CHUNK);
+            chunks[c] = channel.map(
+                    FileChannel.MapMode.READ_WRITE,
+                    HEADER_SIZE + (long) c * RECORDS_PER_CHUNK * RECORD_SIZE,
+                    records * RECORD_SIZE
+            );
+        }
+
+        long count = 0;
+        for (long index = 0; index < size; index++) {
+            if (isDone(index)) {
+                count++;
+            }
+        }
+        this.restored = count;
+    }
+
+    /**
+     * Opens the checkpoint of the tournament, creating the file if it does not exist yet.
+     * If the file exists, results from it are used to resume the tournament
+     *
+     * @param file The file of the checkpoint
+     * @param seed Seed of the tournament, saved only to be reported, if the file belongs to another tournament
+     * @param fingerprint Identifies everything, which affects results of matches,
+     *                    for example {@link ParallelTournament#fingerprint()}
+     * @param size Amount of matches in the schedule
+     * @return The checkpoint
+     * @throws IOException if the file can not be opened or created
+     * @throws IllegalStateException if the file is a checkpoint of a different tournament
+     */
+    public static Checkpoint open(Path file, long seed, long fingerprint, long size) throws IOException {
+        boolean exists = Files.exists(file) && Files.size(file) > 0;
+        FileChannel channel = FileChannel.open(
+                file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE
+        );
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            if (exists) {
+                channel.read(header, 0);
+                header.flip();
+                if (header.remaining() < HEADER_SIZE || header.getLong() != MAGIC || header.getInt() != VERSION) {
+                    throw new IllegalStateException(file + " is not a checkpoint of the tournament");
+                }
+                header.getInt();
+                long savedFingerprint = header.getLong();
+                long savedSeed = header.getLong();
+                long savedSize = header.getLong();
+                if (savedFingerprint != fingerprint || savedSize != size) {
+                    throw new IllegalStateException(String.format(
+                            "%s belongs to another tournament with seed %d and %d matches", file, savedSeed, savedSize
+                    ));
+                }
+            } else {
+                header.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(fingerprint).putLong(seed).putLong(size);
+                header.flip();
+                channel.write(header, 0);
+                channel.force(true);
+            }
+            return new Checkpoint(channel, size);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * @param index Index of the match in the schedule
+     * @return {@code true} if result of the match is saved
+     */
+    public boolean isDone(long index) {
+        ByteBuffer chunk = chunks[(int) (index / RECORDS_PER_CHUNK)];
+        int offset = (int) (index % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        long bits1 = chunk.getLong(offset);
+        long bits2 = chunk.getLong(offset + 8);
+        return chunk.getLong(offset + 16) == check(index, bits1, bits2);
+    }
+
+    /**
+     * @param index Index of the match in the schedule, which is {@link Checkpoint#isDone(long) done}
+     * @return Saved total payoff of the first player
+     */
+    public double getScore1(long index) {
+        return chunks[(int) (index / RECORDS_PER_CHUNK)].getDouble((int) (index % RECORDS_PER_CHUNK) * RECORD_SIZE);
+    }
+
+    /**
+     * @param index Index of the match in the schedule, which is {@link Checkpoint#isDone(long) done}
+     * @return Saved total payoff of the second player
+     */
+    public double getScore2(long index) {
+        return chunks[(int) (index / RECORDS_PER_CHUNK)].getDouble((int) (index % RECORDS_PER_CHUNK) * RECORD_SIZE + 8);
+    }
+
+    /**
+     * Saves the result of the match. Different matches can be saved concurrently
+     *
+     * @param index Index of the match in the schedule
+     * @param score1 Total payoff of the first player
+     * @param score2 Total payoff of the second player
+     */
+    public void save(long index, double score1, double score2) {
+        MappedByteBuffer chunk = chunks[(int) (index / RECORDS_PER_CHUNK)];
+        int offset = (int) (index % RECORDS_PER_CHUNK) * RECORD_SIZE;
+        long bits1 = Double.doubleToRawLongBits(score1);
+        long bits2 = Double.doubleToRawLongBits(score2);
+        chunk.putLong(offset, bits1);
+        chunk.putLong(offset + 8, bits2);
+        chunk.putLong(offset + 16, check(index, bits1, bits2));
+        if (saved.incrementAndGet() % FORCE_EVERY == 0) {
+            chunk.force();
+        }
+    }
+
+    /**
+     * Hash of the record, which is never equal to the content of an empty record
+     */
+    private static long check(long index, long bits1, long bits2) {
+        long h = index * 0x9e3779b97f4a7c15L;
+        h = (h ^ bits1) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ bits2) * 0x94d049bb133111ebL;
+        h ^= h >>> 31;
+        return h == 0 ? 1 : h;
+    }
+
+    /**
+     * @return Amount of matches in the schedule
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * @return Amount of matches, which were already done, when the checkpoint was opened
+     */
+    public long getRestored() {
+        return restored;
+    }
+
+    /**
+     * Forces all records to the disk and closes the file
+     *
+     * @throws IOException if the file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        for (MappedByteBuffer chunk : chunks) {
+            chunk.force();
+        }
+        channel.close();
+    }
+
+}
@@ -0,0 +1,399 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.GameState;
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+
+/**
+ * Generalised match, in which any amount of players share any amount of fields.
+ *
+ * The rules are the same as in {@link Match}: a player, who is alone on a field, gets {@code f(X) - f(0)},
+ * players, who chose the same field, get nothing, each chosen field decreases once, and then all fields grow.
+ * With three fields and two players, the results are exactly the same as of {@link Match} with the same seed
+ * and without skipping of periodic matches, since the players get the same random generators.
+ *
+ * State of the fields is kept in a {@link MaxTree}, so players find the best field without scanning all of them
+ * (see {@link GameState#getBestField(int)}). When fields do not shrink by themselves, the growth, which is
+ * common for all fields, is kept in one offset, so only the fields, which were eaten, are updated after each round.
+ * Then each round takes {@code O(p log f)} time for {@code p} players and {@code f} fields, plus the moves.
+ *
+ * Strategies, which override {@link Player#move(GameState)}, see all fields; the others see only the first three.
+ * Events, metrics, time budgets and skipping of periodic matches are supported only by {@link Match}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class CommonsMatch {
+
+    /**
+     * X of every field at the start of the match
+     */
+    private static final int INITIAL_X = 1;
+
+    /**
+     * Amount of fields in the commons, played by {@link CommonsMatch#main(String[])} by default
+     */
+    private static final int DEFAULT_FIELDS = 300;
+
+    /**
+     * Amount of players in the commons, played by {@link CommonsMatch#main(String[])} by default
+     */
+    private static final int DEFAULT_PLAYERS = 200;
+
+    /**
+     * Players of the match, in the order of their indexes
+     */
+    private final Player[] players;
+
+    /**
+     * Amount of fields
+     */
+    private final int fields;
+
+    /**
+     * Amount of rounds in this match
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Table, which is used to calculate payoffs
+     */
+    private final PayoffTable payoffs;
+
+    /**
+     * Random generator of the match, from which generators of all players are derived
+     */
+    private final Random random;
+
+    /**
+     * How much X of a field decreases, when somebody eats on it, before it grows
+     */
+    private int fieldDecrease = Match.DEFAULT_FIELD_DECREASE;
+
+    /**
+     * How much X of every field grows after each round
+     */
+    private int fieldGrowth = Match.DEFAULT_FIELD_GROWTH;
+
+    /**
+     * Total payoff of each player, available after {@link CommonsMatch#play()}
+     */
+    private final double[] scores;
+
+    /**
+     * Creates the match, but does not play it.
+     * Matches with the same players and the same seed of {@code random} give the same results
+     *
+     * @param players Players of the match, at least two
+     * @param fields Amount of fields, at least one
+     * @param numberOfRounds Amount of rounds in the match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Random generator of the match
+     */
+    public CommonsMatch(List<Player> players, int fields, int numberOfRounds, PayoffTable payoffs, Random random) {
+        if (players.size() < 2) {
+            throw new IllegalArgumentException("At least two players are needed, got " + players.size());
+        }
+        if (fields < 1) {
+            throw new IllegalArgumentException("At least one field is needed, got " + fields);
+        }
+        this.players = players.toArray(new Player[0]);
+        this.fields = fields;
+        this.numberOfRounds = numberOfRounds;
+        this.payoffs = payoffs;
+        this.random = random;
+        this.scores = new double[this.players.length];
+    }
+
+    /**
+     * Changes the rules of how fields grow and are eaten, the same way as {@link Match#setFieldDynamics(int, int)}.
+     * With negative growth, every field is updated after each round
+     *
+     * @param decrease How much X of a field decreases, when somebody eats on it
+     * @param growth How much X of every field grows after each round
+     * @return this match, for convenience
+     */
+    public CommonsMatch setFieldDynamics(int decrease, int growth) {
+        this.fieldDecrease = decrease;
+        this.fieldGrowth = growth;
+        return this;
+    }
+
+    /**
+     * Resets all players and plays all rounds of the match, summing up the payoffs of each player
+     *
+     * @return this match, for convenience
+     */
+    public CommonsMatch play() {
+
+        // initialize players and the game
+        int n = players.length;
+        for (int p = 0; p < n; p++) {
+            players[p].reset(random.split(p + 1));
+        }
+        Arrays.fill(scores, 0);
+        Board board = new Board();
+        GameState[] views = new GameState[n];
+        for (int p = 0; p < n; p++) {
+            views[p] = board.new PlayerView(p);
+        }
+        int[] moves = new int[n];
+        int[] eaters = new int[fields + 1];
+        int[] eaten = new int[Math.min(n, fields)];
+
+        for (int i = 0; i < numberOfRounds; i++) {
+
+            // get players' moves
+            for (int p = 0; p < n; p++) {
+                moves[p] = players[p].move(views[p]);
+            }
+
+            // count players on each chosen field
+            int eatenCount = 0;
+            for (int p = 0; p < n; p++) {
+                int move = moves[p];
+                if (move >= 1 && move <= fields && eaters[move]++ == 0) {
+                    eaten[eatenCount++] = move;
+                }
+            }
+
+            // only the players, who are alone on their fields, get anything
+            for (int p = 0; p < n; p++) {
+                int move = moves[p];
+                if (move >= 1 && move <= fields && eaters[move] == 1) {
+                    scores[p] += payoffs.gain(board.x(move));
+                }
+            }
+
+            // update the X values of all fields
+            board.update(eaten, eatenCount);
+            for (int k = 0; k < eatenCount; k++) {
+                eaters[eaten[k]] = 0;
+            }
+
+            // save moves for later
+            System.arraycopy(moves, 0, board.lastMoves, 0, n);
+
+        }
+        for (int p = 0; p < n; p++) {
+            players[p].matchFinished();
+        }
+
+        return this;
+    }
+
+    /**
+     * @return Amount of players
+     */
+    public int getPlayerCount() {
+        return players.length;
+    }
+
+    /**
+     * @param player Index of the player
+     * @return The player
+     */
+    public Player getPlayer(int player) {
+        return players[player];
+    }
+
+    /**
+     * @return Amount of fields
+     */
+    public int getFieldCount() {
+        return fields;
+    }
+
+    /**
+     * @return Amount of rounds in this match
+     */
+    public int getNumberOfRounds() {
+        return numberOfRounds;
+    }
+
+    /**
+     * @param player Index of the player
+     * @return Total payoff of the player
+     */
+    public double getScore(int player) {
+        return scores[player];
+    }
+
+    /**
+     * Plays one commons with players, sampled from the population of the {@link Tournament},
+     * and prints the average payoff per round of each strategy
+     *
+     * @param args Optional seed, amount of fields and amount of players.
+     *             By default, the seed is random, and there are {@link CommonsMatch#DEFAULT_FIELDS} fields
+     *             and {@link CommonsMatch#DEFAULT_PLAYERS} players
+     */
+    public static void main(String[] args) {
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        int fields = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_FIELDS;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : DEFAULT_PLAYERS;
+        Random random = new Random(seed);
+        int numberOfRounds = random.nextInt(Tournament.MIN_NUMBER_OF_ROUNDS, Tournament.MAX_NUMBER_OF_ROUNDS);
+
+        List<Player> population = Tournament.createPlayers();
+        Random sampling = random.split(-1);
+        List<Player> players = new ArrayList<>(size);
+        for (int p = 0; p < size; p++) {
+            players.add(ParallelTournament.newInstance(population.get(sampling.nextInt(population.size()))));
+        }
+
+        Log.log(Log.LogLevel.LOG_INFO, "Seed: %d\n", seed);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of rounds: %d\n", numberOfRounds);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of fields: %d\n", fields);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of players: %d\n", size);
+        Log.log(Log.LogLevel.LOG_INFO, "\n");
+
+        long time = System.nanoTime();
+        CommonsMatch match = new CommonsMatch(players, fields, numberOfRounds, Tournament.PAYOFF_TABLE, random).play();
+        time = System.nanoTime() - time;
+
+        Map<String, double[]> strategies = new TreeMap<>();
+        for (int p = 0; p < size; p++) {
+            double[] total = strategies.computeIfAbsent(players.get(p).getClass().getSimpleName(), name -> new double[2]);
+            total[0] += match.getScore(p);
+            total[1]++;
+        }
+        for (Map.Entry<String, double[]> entry : strategies.entrySet()) {
+            double[] total = entry.getValue();
+            Log.log(
+                    Log.LogLevel.LOG_PAYOFFS_SUM,
+                    "%s: %.10f on average (%d players)\n",
+                    String.format("%70s", entry.getKey()),
+                    total[0] / total[1] / numberOfRounds,
+                    (int) total[1]
+            );
+        }
+        Log.log(Log.LogLevel.LOG_INFO, "\nPlayed in %.3f s\n", time / 1e9);
+    }
+
+    /**
+     * X values of the fields and the last moves of the players
+     */
+    private final class Board {
+
+        /**
+         * X of each field minus {@link Board#offset}, at the index of the field minus one
+         */
+        private final MaxTree tree = new MaxTree(fields);
+
+        /**
+         * Growth, which is common for all fields and is not stored in the {@link Board#tree}
+         */
+        private int offset = 0;
+
+        /**
+         * The last move of each player, or {@code 0} before the first round
+         */
+        private final int[] lastMoves = new int[players.length];
+
+        private Board() {
+            for (int field = 0; field < fields; field++) {
+                tree.set(field, INITIAL_X);
+            }
+        }
+
+        private int x(int field) {
+            return tree.get(field - 1) + offset;
+        }
+
+        /**
+         * Decreases X of the eaten fields and increases X of all fields. X does not become negative
+         *
+         * @param eaten Fields, on which somebody ate, each of them once
+         * @param count Amount of such fields
+         */
+        private void update(int[] eaten, int count) {
+            if (fieldGrowth >= 0) {
+                // fields, which nobody ate, can not reach zero, so only the eaten ones are changed
+                for (int k = 0; k < count; k++) {
+                    int field = eaten[k];
+                    int x = Math.max(0, x(field) - fieldDecrease + fieldGrowth);
+                    tree.set(field - 1, x - offset - fieldGrowth);
+                }
+                offset += fieldGrowth;
+                return;
+            }
+            for (int k = 0; k < count; k++) {
+                int field = eaten[k];
+                tree.set(field - 1, tree.get(field - 1) - fieldDecrease);
+            }
+            for (int field = 1; field <= fields; field++) {
+                tree.set(field - 1, Math.max(0, x(field) + fieldGrowth));
+            }
+            offset = 0;
+        }
+
+        /**
+         * {@link GameState} of one of the players, backed by the board
+         */
+        private final class PlayerView implements GameState {
+
+            private final int me;
+
+            private PlayerView(int me) {
+                this.me = me;
+            }
+
+            @Override
+            public int getX(int field) {
+                return x(field);
+            }
+
+            @Override
+            public int getOpponentLastMove() {
+                return lastMoves[me + 1 == lastMoves.length ? 0 : me + 1];
+            }
+
+            @Override
+            public int getMyLastMove() {
+                return lastMoves[me];
+            }
+
+            @Override
+            public int getFieldCount() {
+                return fields;
+            }
+
+            @Override
+            public int getPlayerCount() {
+                return lastMoves.length;
+            }
+
+            @Override
+            public int getMyIndex() {
+                return me;
+            }
+
+            @Override
+            public int getLastMove(int player) {
+                return lastMoves[player];
+            }
+
+            @Override
+            public int getBestX() {
+                return tree.max() + offset;
+            }
+
+            @Override
+            public int getBestFieldCount() {
+                return tree.countMax();
+            }
+
+            @Override
+            public int getBestField(int k) {
+                return tree.selectMax(k) + 1;
+            }
+
+        }
+
+    }
+
+}
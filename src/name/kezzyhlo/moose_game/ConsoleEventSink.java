@@ -0,0 +1,63 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.Arrays;
+
+
+/**
+ * Prints events of matches in human-readable form using {@link Log#log} with {@link Log.LogLevel#LOG_MOVES}.
+ * Output of concurrently played matches is mixed, so it should be used with a single thread.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ConsoleEventSink implements EventSink {
+
+    /**
+     * The only instance, since the sink has no state
+     */
+    public static final ConsoleEventSink INSTANCE = new ConsoleEventSink();
+
+    /**
+     * Use {@link ConsoleEventSink#INSTANCE}
+     */
+    private ConsoleEventSink() {}
+
+    /**
+     * Returns the sink, which should be used by default
+     *
+     * @return {@link ConsoleEventSink#INSTANCE} if {@link Log.LogLevel#LOG_MOVES} is enabled, {@code null} otherwise
+     */
+    public static EventSink forLogLevel() {
+        return Log.isEnabled(Log.LogLevel.LOG_MOVES) ? INSTANCE : null;
+    }
+
+    @Override
+    public MatchListener matchStarted(long matchId, Player player1, Player player2, int numberOfRounds) {
+        Log.log(
+                Log.LogLevel.LOG_MOVES,
+                "%s is playing with %s\n",
+                player1, player2
+        );
+        return new MatchListener() {
+
+            @Override
+            public void roundPlayed(int round, int[] x, int move1, int move2, double score1, double score2) {
+                Log.log(
+                        Log.LogLevel.LOG_MOVES,
+                        "Round %d. Vegetation: %s. %s chooses %d and %s chooses %d. Scores: %f, %f.\n",
+                        round,
+                        Arrays.toString(x),
+                        player1, move1, player2, move2,
+                        score1, score2
+                );
+            }
+
+            @Override
+            public void matchFinished(double score1, double score2) {
+                Log.log(Log.LogLevel.LOG_MOVES, "\n");
+            }
+
+        };
+    }
+
+}
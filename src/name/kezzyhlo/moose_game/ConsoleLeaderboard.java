@@ -0,0 +1,101 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+
+/**
+ * Periodically prints the best players of the {@link Leaderboard} using {@link Log#log} with {@link Log.LogLevel#LOG_INFO},
+ * so that the ranking of a long tournament is visible long before it ends.
+ * Each view shows the progress of the tournament and the mean payoff per round of the best players
+ * with their 95% confidence intervals, which tell how much the ranking may still change.
+ * Printing runs on its own daemon thread and reads only a snapshot, so it does not slow the matches down.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ConsoleLeaderboard implements AutoCloseable {
+
+    private final Leaderboard leaderboard;
+    private final List<Player> players;
+
+    /**
+     * Amount of matches in the whole tournament
+     */
+    private final long totalMatches;
+
+    /**
+     * Amount of players, which are shown
+     */
+    private final int top;
+
+    /**
+     * Time, when the view was started, in nanoseconds
+     */
+    private final long startNanos = System.nanoTime();
+
+    private final ScheduledExecutorService printer;
+
+    /**
+     * Starts printing the leaderboard
+     *
+     * @param leaderboard The leaderboard, which receives results of the tournament
+     * @param players Players of the tournament, in the order of their indexes
+     * @param totalMatches Amount of matches in the whole tournament, to show the progress
+     * @param periodMillis Time between the views in milliseconds. The first view is printed after this time too
+     * @param top Amount of the best players, which are shown
+     */
+    public ConsoleLeaderboard(Leaderboard leaderboard, List<Player> players, long totalMatches, long periodMillis, int top) {
+        this.leaderboard = leaderboard;
+        this.players = players;
+        this.totalMatches = totalMatches;
+        this.top = top;
+        this.printer = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "moose-game-leaderboard");
+            thread.setDaemon(true);
+            return thread;
+        });
+        printer.scheduleAtFixedRate(this::print, periodMillis, periodMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Prints the current state of the leaderboard immediately
+     */
+    public synchronized void print() {
+        if (!Log.isEnabled(Log.LogLevel.LOG_INFO)) {
+            return;
+        }
+        long finished = leaderboard.getFinishedMatches();
+        Standings standings = leaderboard.snapshot();
+        StringBuilder view = new StringBuilder(String.format(
+                "Leaderboard after %d of %d matches (%.1f%%) in %.1f s:\n",
+                finished, totalMatches, 100.0 * finished / Math.max(1, totalMatches),
+                (System.nanoTime() - startNanos) / 1e9
+        ));
+        int[] ranking = standings.ranking();
+        for (int place = 0; place < Math.min(top, ranking.length); place++) {
+            int i = ranking[place];
+            view.append(String.format(
+                    "%4d. %s: %.10f +- %.10f (%d matches)\n",
+                    place + 1,
+                    String.format("%64s", players.get(i)),
+                    standings.getMean(i),
+                    standings.getConfidenceInterval(i),
+                    standings.getMatchCount(i)
+            ));
+        }
+        // one call, so that the view is not interleaved with other output
+        Log.log(Log.LogLevel.LOG_INFO, "%s\n", view);
+    }
+
+    /**
+     * Stops printing. The last view is not printed, since the final results are printed by the caller
+     */
+    @Override
+    public void close() {
+        printer.shutdownNow();
+    }
+
+}
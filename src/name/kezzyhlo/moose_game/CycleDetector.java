@@ -0,0 +1,120 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.GameState;
+import name.kezzyhlo.moose_game.players.Player;
+
+
+/**
+ * Finds out, that a match has become periodic, so that the rest of it does not need to be played.
+ *
+ * The joint state of the match is the X values of the fields, the last moves,
+ * {@link Player#getStateKey(GameState) state keys} of both players and states of their random generators.
+ * If it repeats, every following round repeats too: the generators are in the same state only
+ * if nothing was drawn from them in between. The state is compared with the one, saved at some previous round,
+ * and the saved state is replaced, when the distance to it becomes a power of two, as in Brent's algorithm.
+ * So the cycle is found within a few of its lengths after it starts, with constant memory.
+ * Keys of the players are requested only when the rest of the state matches, and payoffs of the cycle
+ * are the differences of the total payoffs, so most rounds cost just a few comparisons.
+ */
+final class CycleDetector {
+
+    private final Player player1;
+    private final Player player2;
+    private final GameState state1;
+    private final GameState state2;
+    private final Random random1;
+    private final Random random2;
+
+    /**
+     * Joint state, saved at some round: X of three fields, two last moves, two keys and two seeds
+     */
+    private int savedXA, savedXB, savedXC, savedMove1, savedMove2;
+    private long savedKey1 = Player.UNKNOWN_STATE, savedKey2 = Player.UNKNOWN_STATE;
+    private long savedSeed1, savedSeed2;
+
+    /**
+     * Round, at which the state was saved, and total payoffs of the players before it
+     */
+    private int savedRound = 0;
+    private double savedScore1 = 0, savedScore2 = 0;
+
+    /**
+     * Rounds, after which the saved state is replaced
+     */
+    private int power = 0;
+
+    /**
+     * Payoffs of the players in one repetition of the found cycle
+     */
+    private double cycleScore1 = 0, cycleScore2 = 0;
+
+    /**
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param state1 State of the match, as the first player sees it
+     * @param state2 State of the match, as the second player sees it
+     * @param random1 Random generator of the first player
+     * @param random2 Random generator of the second player
+     */
+    CycleDetector(Player player1, Player player2, GameState state1, GameState state2, Random random1, Random random2) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.state1 = state1;
+        this.state2 = state2;
+        this.random1 = random1;
+        this.random2 = random2;
+    }
+
+    /**
+     * Should be called before the moves of each round
+     *
+     * @param round Index of the round
+     * @param x Current values of X for each of fields
+     * @param prevMoves Last moves of both players
+     * @param score1 Total payoff of the first player before this round
+     * @param score2 Total payoff of the second player before this round
+     * @return Length of the cycle, which ends at this round, or {@code 0} if the cycle is not found yet
+     */
+    int check(int round, int[] x, int[] prevMoves, double score1, double score2) {
+        // generators change in almost every round of matches with random strategies, so they are compared first
+        if (savedKey2 >= 0 && savedSeed1 == random1.getSeed() && savedSeed2 == random2.getSeed()
+                && savedXA == x[1] && savedXB == x[2] && savedXC == x[3]
+                && savedMove1 == prevMoves[0] && savedMove2 == prevMoves[1]
+                && savedKey1 == player1.getStateKey(state1) && savedKey2 == player2.getStateKey(state2)) {
+            cycleScore1 = score1 - savedScore1;
+            cycleScore2 = score2 - savedScore2;
+            return round - savedRound;
+        }
+        if (round - savedRound == power) {
+            power = Math.max(1, power * 2);
+            savedRound = round;
+            savedScore1 = score1;
+            savedScore2 = score2;
+            savedXA = x[1];
+            savedXB = x[2];
+            savedXC = x[3];
+            savedMove1 = prevMoves[0];
+            savedMove2 = prevMoves[1];
+            savedKey1 = player1.getStateKey(state1);
+            savedKey2 = savedKey1 < 0 ? Player.UNKNOWN_STATE : player2.getStateKey(state2);
+            savedSeed1 = random1.getSeed();
+            savedSeed2 = random2.getSeed();
+        }
+        return 0;
+    }
+
+    /**
+     * @return Total payoff of the first player in one repetition of the found cycle
+     */
+    double getCycleScore1() {
+        return cycleScore1;
+    }
+
+    /**
+     * @return Total payoff of the second player in one repetition of the found cycle
+     */
+    double getCycleScore2() {
+        return cycleScore2;
+    }
+
+}
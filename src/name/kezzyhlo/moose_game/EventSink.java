@@ -0,0 +1,57 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+
+/**
+ * Receives structured events of the tournament: start of each match, each round and end of each match.
+ * Events are given as primitive values, so nothing is boxed or formatted,
+ * unless the sink itself decides to do that.
+ * Sink should be thread-safe, because matches can be played concurrently,
+ * but each {@link MatchListener} is used only by the thread playing its match.
+ *
+ * @see ConsoleEventSink
+ * @see AsyncFileEventSink
+ */
+public interface EventSink {
+
+    /**
+     * Called before the first round of the match
+     *
+     * @param matchId Identifier of the match, unique within the tournament
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param numberOfRounds Amount of rounds in the match
+     * @return Listener, which will receive rounds and the end of this match
+     */
+    MatchListener matchStarted(long matchId, Player player1, Player player2, int numberOfRounds);
+
+    /**
+     * Receives events of one match
+     */
+    interface MatchListener {
+
+        /**
+         * Called after both players made their moves, before X values are updated
+         *
+         * @param round Index of the round, starting from {@code 0}
+         * @param x Current values of X for each of fields, starting from index {@code 1}.
+         *          The array must not be modified or kept after the call
+         * @param move1 The move of the first player
+         * @param move2 The move of the second player
+         * @param score1 Total payoff of the first player, including this round
+         * @param score2 Total payoff of the second player, including this round
+         */
+        void roundPlayed(int round, int[] x, int move1, int move2, double score1, double score2);
+
+        /**
+         * Called after the last round of the match
+         *
+         * @param score1 Total payoff of the first player
+         * @param score2 Total payoff of the second player
+         */
+        void matchFinished(double score1, double score2);
+
+    }
+
+}
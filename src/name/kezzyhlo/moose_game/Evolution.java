@@ -0,0 +1,91 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+
+/**
+ * Main class of the evolutionary tournament, where strategies of {@link Tournament} compete for the share of population
+ * @see ReplicatorDynamics
+ */
+public final class Evolution {
+
+    /**
+     * Amount of generations to calculate
+     */
+    private static final long NUMBER_OF_GENERATIONS = 10_000;
+
+    /**
+     * Shares of strategies are printed each time this amount of generations passes
+     */
+    private static final long REPORT_EVERY = 1_000;
+
+    /**
+     * Amount of matches, which are simulated for each pair of strategies to estimate their payoffs
+     */
+    private static final int SAMPLES = 256;
+
+    /**
+     * The main method.
+     *
+     * Computes payoffs of all strategies against each other and evolves the population,
+     * which initially has the amounts of players defined in {@link Tournament#createPlayers()}
+     *
+     * @param args Optional seed. The same seed gives the same results.
+     *             Optional second argument is the amount of generations
+     */
+    public static void main(String[] args) {
+
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        long generations = args.length > 1 ? Long.parseLong(args[1]) : NUMBER_OF_GENERATIONS;
+        Random random = new Random(seed);
+        int numberOfRounds = random.nextInt(Tournament.MIN_NUMBER_OF_ROUNDS, Tournament.MAX_NUMBER_OF_ROUNDS);
+
+        Log.log(Log.LogLevel.LOG_INFO, "Seed: %d\n", seed);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of rounds: %d\n", numberOfRounds);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of generations: %d\n", generations);
+        Log.log(Log.LogLevel.LOG_INFO, "\n");
+
+        ReplicatorDynamics population = ReplicatorDynamics.fromPlayers(
+                Tournament.createPlayers(), numberOfRounds, SAMPLES, Tournament.PAYOFF_TABLE, random
+        );
+
+        for (int i = 0; i < population.size() && Log.isEnabled(Log.LogLevel.LOG_DETAILED_PAYOFFS); i++) {
+            for (int j = 0; j < population.size(); j++) {
+                Log.log(Log.LogLevel.LOG_DETAILED_PAYOFFS, "%10.6f", population.getPayoff(i, j));
+            }
+            Log.log(Log.LogLevel.LOG_DETAILED_PAYOFFS, "  %s\n", name(population.getStrategy(i)));
+        }
+        Log.log(Log.LogLevel.LOG_DETAILED_PAYOFFS, "\n");
+
+        report(population);
+        while (population.getGeneration() < generations) {
+            population.run(Math.min(REPORT_EVERY, generations - population.getGeneration()));
+            report(population);
+        }
+    }
+
+    private static void report(ReplicatorDynamics population) {
+        Log.log(Log.LogLevel.LOG_PAYOFFS_SUM, "Generation %d:\n", population.getGeneration());
+        for (int i = 0; i < population.size(); i++) {
+            Log.log(
+                    Log.LogLevel.LOG_PAYOFFS_SUM,
+                    "%40s: %.10f\n",
+                    name(population.getStrategy(i)),
+                    population.getShare(i)
+            );
+        }
+        Log.log(Log.LogLevel.LOG_PAYOFFS_SUM, "\n");
+    }
+
+    private static String name(Player strategy) {
+        String parameters = strategy.getParameters();
+        String name = strategy.getClass().getSimpleName();
+        return parameters.isEmpty() ? name : name + "(" + parameters + ")";
+    }
+
+    /**
+     * No instances needed for this class
+     */
+    private Evolution() {}
+
+}
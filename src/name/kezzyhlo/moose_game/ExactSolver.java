@@ -0,0 +1,344 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.Arrays;
+
+
+/**
+ * Calculates expected payoffs of a match between two {@link MarkovStrategy strategies} without playing it.
+ *
+ * The state of the match consists of X values of the fields, last moves of both players
+ * (only if the other strategy {@link MarkovStrategy#observesOpponent() observes} them)
+ * and internal states of both strategies. The solver keeps the probability of each reachable state
+ * and moves this distribution forward round by round, adding the expected payoffs of each round.
+ * Reachable states are stored in a hash table of primitive keys, so only the states,
+ * which can actually happen, are considered.
+ *
+ * States, whose probability falls below {@link ExactSolver#PROBABILITY_THRESHOLD}, are dropped,
+ * and their total probability is reported by {@link ExactSolver#getLostProbability()}.
+ * If there are too many states, the solver gives up, and {@link ExactSolver#expectedScores}
+ * falls back to simulation.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExactSolver {
+
+    /**
+     * Maximal amount of internal states of one strategy
+     */
+    public static final int MAX_STRATEGY_STATES = 1 << 12;
+
+    /**
+     * Maximal amount of rounds, so that X values fit into 12 bits of the key
+     */
+    public static final int MAX_NUMBER_OF_ROUNDS = (1 << 12) - 2;
+
+    /**
+     * The solver gives up, if there are more reachable states of the match after some round
+     */
+    private static final int MAX_MATCH_STATES = 1 << 16;
+
+    /**
+     * States with lower probability are not followed further
+     */
+    private static final double PROBABILITY_THRESHOLD = 1e-12;
+
+    /**
+     * When the solver is used instead of simulation, it may process this amount of states per each simulated round.
+     * Processing one state costs about as much as several simulated rounds, so exact calculation is tried
+     * only when it is not much slower than the simulation it replaces
+     */
+    private static final int STATES_PER_SIMULATED_ROUND = 4;
+
+    private final MarkovStrategy strategy1;
+    private final MarkovStrategy strategy2;
+    private final PayoffTable payoffs;
+
+    private boolean solved = false;
+    private double score1 = 0;
+    private double score2 = 0;
+    private double lostProbability = 0;
+    private int maxStates = 0;
+
+    /**
+     * Creates the solver, but does not solve anything
+     *
+     * @param strategy1 Strategy of the first player
+     * @param strategy2 Strategy of the second player
+     * @param payoffs Table, which is used to calculate payoffs
+     */
+    public ExactSolver(MarkovStrategy strategy1, MarkovStrategy strategy2, PayoffTable payoffs) {
+        this.strategy1 = strategy1;
+        this.strategy2 = strategy2;
+        this.payoffs = payoffs;
+    }
+
+    /**
+     * Calculates expected total payoffs of both players in the match.
+     * If the match is too big, {@link ExactSolver#isSolved()} is {@code false} afterwards
+     *
+     * @param numberOfRounds Amount of rounds in the match
+     * @return this solver, for convenience
+     */
+    public ExactSolver solve(int numberOfRounds) {
+        return solve(numberOfRounds, Long.MAX_VALUE);
+    }
+
+    /**
+     * Calculates expected total payoffs of both players in the match, but gives up,
+     * if more than {@code maxWork} states have to be processed in total
+     *
+     * @param numberOfRounds Amount of rounds in the match
+     * @param maxWork Maximal sum of amounts of states over all rounds
+     * @return this solver, for convenience
+     */
+    public ExactSolver solve(int numberOfRounds, long maxWork) {
+        solved = false;
+        score1 = 0;
+        score2 = 0;
+        lostProbability = 0;
+        maxStates = 0;
+        if (numberOfRounds > MAX_NUMBER_OF_ROUNDS
+                || strategy1.stateCount() > MAX_STRATEGY_STATES
+                || strategy2.stateCount() > MAX_STRATEGY_STATES) {
+            return this;
+        }
+
+        StateTable current = new StateTable();
+        StateTable next = new StateTable();
+        double[] initial1 = new double[strategy1.stateCount()];
+        double[] initial2 = new double[strategy2.stateCount()];
+        strategy1.initialStates(initial1);
+        strategy2.initialStates(initial2);
+        for (int s1 = 0; s1 < initial1.length; s1++) {
+            for (int s2 = 0; s2 < initial2.length; s2++) {
+                if (initial1[s1] > 0 && initial2[s2] > 0) {
+                    current.add(key(1, 1, 1, 0, 0, s1, s2), initial1[s1] * initial2[s2]);
+                }
+            }
+        }
+
+        // last moves, which nobody looks at, are not remembered, so that states differing only in them are merged
+        int remember1 = strategy2.observesOpponent() ? 3 : 0;
+        int remember2 = strategy1.observesOpponent() ? 3 : 0;
+        double[] moves1 = new double[4], moves2 = new double[4];
+        int[] x = new int[4];
+        long work = 0;
+        for (int i = 0; i < numberOfRounds; i++) {
+            work += current.size;
+            if (work > maxWork) {
+                score1 = 0;
+                score2 = 0;
+                return this;
+            }
+            for (int k = 0; k < current.keys.length; k++) {
+                long key = current.keys[k];
+                if (key == StateTable.EMPTY) continue;
+                double probability = current.values[k];
+
+                x[1] = (int) (key & 0xfff);
+                x[2] = (int) (key >>> 12 & 0xfff);
+                x[3] = (int) (key >>> 24 & 0xfff);
+                int last1 = (int) (key >>> 36 & 3), last2 = (int) (key >>> 38 & 3);
+                int s1 = (int) (key >>> 40 & 0xfff), s2 = (int) (key >>> 52 & 0xfff);
+                strategy1.moves(s1, last2, x[1], x[2], x[3], moves1);
+                strategy2.moves(s2, last1, x[1], x[2], x[3], moves2);
+
+                for (int move1 = 1; move1 <= 3; move1++) {
+                    if (moves1[move1] == 0) continue;
+                    int next1 = strategy1.nextState(s1, last2, move1);
+                    for (int move2 = 1; move2 <= 3; move2++) {
+                        if (moves2[move2] == 0) continue;
+                        double p = probability * moves1[move1] * moves2[move2];
+                        if (move1 != move2) {
+                            score1 += p * payoffs.gain(x[move1]);
+                            score2 += p * payoffs.gain(x[move2]);
+                        }
+                        if (p < PROBABILITY_THRESHOLD) {
+                            lostProbability += p;
+                            continue;
+                        }
+                        int next2 = strategy2.nextState(s2, last1, move2);
+                        next.add(key(
+                                nextX(x[1], 1, move1, move2),
+                                nextX(x[2], 2, move1, move2),
+                                nextX(x[3], 3, move1, move2),
+                                move1 & remember1, move2 & remember2, next1, next2
+                        ), p);
+                    }
+                }
+            }
+
+            maxStates = Math.max(maxStates, next.size);
+            if (next.size > MAX_MATCH_STATES) {
+                score1 = 0;
+                score2 = 0;
+                return this;
+            }
+            StateTable swap = current;
+            current = next;
+            next = swap;
+            next.clear();
+        }
+
+        solved = true;
+        return this;
+    }
+
+    /**
+     * Returns expected total payoffs of both players. If both strategies can be described by
+     * {@link MarkovStrategies}, and solving the match is not much slower than simulating it,
+     * they are calculated by {@link ExactSolver}.
+     * Otherwise, {@code samples} matches are simulated by {@link BatchSimulator}, and their average is returned
+     *
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param numberOfRounds Amount of rounds in the match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param samples Amount of matches to simulate, if exact calculation is not possible
+     * @param random Random generator of the simulated matches
+     * @return Expected total payoff of the first and the second player
+     */
+    public static double[] expectedScores(
+            Player player1, Player player2, int numberOfRounds, PayoffTable payoffs, int samples, Random random
+    ) {
+        MarkovStrategy strategy1 = MarkovStrategies.forPlayer(player1);
+        MarkovStrategy strategy2 = MarkovStrategies.forPlayer(player2);
+        if (strategy1 != null && strategy2 != null) {
+            long maxWork = (long) samples * numberOfRounds * STATES_PER_SIMULATED_ROUND;
+            ExactSolver solver = new ExactSolver(strategy1, strategy2, payoffs).solve(numberOfRounds, maxWork);
+            if (solver.isSolved()) {
+                return new double[] {solver.getScore1(), solver.getScore2()};
+            }
+        }
+
+        BatchSimulator simulator = new BatchSimulator(
+                BatchStrategies.forPlayer(player1),
+                BatchStrategies.forPlayer(player2),
+                samples,
+                payoffs,
+                random
+        ).play(numberOfRounds);
+        return new double[] {mean(simulator.getScores1()), mean(simulator.getScores2())};
+    }
+
+    private static double mean(double[] values) {
+        double sum = 0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum / values.length;
+    }
+
+    private static int nextX(int x, int field, int move1, int move2) {
+        int value = x + (move1 == field || move2 == field ? -1 : 1);
+        return Math.max(0, value);
+    }
+
+    private static long key(int xA, int xB, int xC, int last1, int last2, int state1, int state2) {
+        return xA
+                | (long) xB << 12
+                | (long) xC << 24
+                | (long) last1 << 36
+                | (long) last2 << 38
+                | (long) state1 << 40
+                | (long) state2 << 52;
+    }
+
+    /**
+     * @return {@code true} if the last {@link ExactSolver#solve(int)} succeeded
+     */
+    public boolean isSolved() {
+        return solved;
+    }
+
+    /**
+     * @return Expected total payoff of the first player
+     */
+    public double getScore1() {
+        return score1;
+    }
+
+    /**
+     * @return Expected total payoff of the second player
+     */
+    public double getScore2() {
+        return score2;
+    }
+
+    /**
+     * @return Total probability of the states, which were dropped, because they were too unlikely
+     */
+    public double getLostProbability() {
+        return lostProbability;
+    }
+
+    /**
+     * @return The biggest amount of reachable states after one round
+     */
+    public int getMaxStates() {
+        return maxStates;
+    }
+
+    /**
+     * Open addressing hash table from the state of the match to its probability
+     */
+    private static final class StateTable {
+
+        /**
+         * Marks empty slots. It is not a valid key, because X values never reach {@code 0xfff}
+         */
+        static final long EMPTY = -1;
+
+        long[] keys = new long[1 << 10];
+        double[] values = new double[1 << 10];
+        int size = 0;
+
+        StateTable() {
+            Arrays.fill(keys, EMPTY);
+        }
+
+        void add(long key, double value) {
+            int mask = keys.length - 1;
+            int index = hash(key) & mask;
+            while (keys[index] != EMPTY) {
+                if (keys[index] == key) {
+                    values[index] += value;
+                    return;
+                }
+                index = (index + 1) & mask;
+            }
+            keys[index] = key;
+            values[index] = value;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        void clear() {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            double[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new double[oldValues.length * 2];
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != EMPTY) {
+                    add(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+        private static int hash(long key) {
+            long h = key * 0x9e3779b97f4a7c15L;
+            return (int) (h ^ h >>> 32);
+        }
+
+    }
+
+}
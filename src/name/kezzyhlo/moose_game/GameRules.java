@@ -0,0 +1,266 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.CoopPlayer;
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+
+/**
+ * Values of the parameters of the game, which are constants in {@link Tournament}, {@link Match} and the strategies:
+ * the logistic vegetation function, the dynamics of fields, the range of amounts of rounds
+ * and knobs of the bundled strategies. The default values give exactly the same game as the {@link Tournament}.
+ *
+ * Each point of a {@link ParameterSweep} is one instance of this class.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class GameRules {
+
+    /**
+     * Parameters, which can be changed
+     */
+    public enum Parameter {
+
+        /**
+         * Maximal amount of vegetation on a field, {@code 10} in {@link Tournament#vegetationAmount(int)}
+         */
+        VEGETATION_SCALE(10, false),
+
+        /**
+         * Steepness of the logistic curve of the vegetation function, {@code 1} by default
+         */
+        VEGETATION_STEEPNESS(1, false),
+
+        /**
+         * X value, at which the vegetation function reaches half of its maximum, {@code 0} by default
+         */
+        VEGETATION_MIDPOINT(0, false),
+
+        /**
+         * How much X of a field decreases, when somebody eats on it
+         * @see Match#DEFAULT_FIELD_DECREASE
+         */
+        FIELD_DECREASE(Match.DEFAULT_FIELD_DECREASE, true),
+
+        /**
+         * How much X of every field grows after each round
+         * @see Match#DEFAULT_FIELD_GROWTH
+         */
+        FIELD_GROWTH(Match.DEFAULT_FIELD_GROWTH, true),
+
+        /**
+         * Minimal amount of rounds in each match
+         * @see Tournament#MIN_NUMBER_OF_ROUNDS
+         */
+        MIN_ROUNDS(Tournament.MIN_NUMBER_OF_ROUNDS, true),
+
+        /**
+         * Maximal amount of rounds in each match
+         * @see Tournament#MAX_NUMBER_OF_ROUNDS
+         */
+        MAX_ROUNDS(Tournament.MAX_NUMBER_OF_ROUNDS, true),
+
+        /**
+         * How many times {@link CoopPlayer} waits for the fields to grow
+         * @see CoopPlayer#TIMES_TO_WAIT
+         */
+        COOP_TIMES_TO_WAIT(CoopPlayer.TIMES_TO_WAIT, true);
+
+        private final double defaultValue;
+        private final boolean integer;
+
+        Parameter(double defaultValue, boolean integer) {
+            this.defaultValue = defaultValue;
+            this.integer = integer;
+        }
+
+        /**
+         * @return Value of the parameter in the usual game
+         */
+        public double getDefaultValue() {
+            return defaultValue;
+        }
+
+        /**
+         * @return {@code true} if only integer values are allowed
+         */
+        public boolean isInteger() {
+            return integer;
+        }
+
+        /**
+         * @return Name of the parameter in lower case, as it is shown in tables
+         */
+        public String getName() {
+            return name().toLowerCase(Locale.ROOT);
+        }
+
+    }
+
+    /**
+     * Values of all parameters, indexed by their ordinals
+     */
+    private final double[] values;
+
+    /**
+     * Creates the rules with default values of all parameters
+     */
+    public GameRules() {
+        this.values = new double[Parameter.values().length];
+        for (Parameter parameter : Parameter.values()) {
+            values[parameter.ordinal()] = parameter.getDefaultValue();
+        }
+    }
+
+    private GameRules(double[] values) {
+        this.values = values.clone();
+    }
+
+    /**
+     * @return New rules with the same values, which can be changed independently
+     */
+    public GameRules copy() {
+        return new GameRules(values);
+    }
+
+    /**
+     * Changes the value of the parameter
+     *
+     * @param parameter The parameter
+     * @param value New value of the parameter
+     * @return this rules, for convenience
+     * @throws IllegalArgumentException if the parameter is an integer one, but the value is not
+     */
+    public GameRules set(Parameter parameter, double value) {
+        if (parameter.isInteger() && value != Math.rint(value)) {
+            throw new IllegalArgumentException(parameter.getName() + " should be an integer, got " + value);
+        }
+        values[parameter.ordinal()] = value;
+        return this;
+    }
+
+    /**
+     * @param parameter The parameter
+     * @return Current value of the parameter
+     */
+    public double get(Parameter parameter) {
+        return values[parameter.ordinal()];
+    }
+
+    /**
+     * @param parameter The integer parameter
+     * @return Current value of the parameter
+     */
+    public int getInt(Parameter parameter) {
+        return (int) values[parameter.ordinal()];
+    }
+
+    /**
+     * Calculates the amount of vegetation on a field, given parameter X of this field.
+     * With the default values, it is the same as {@link Tournament#vegetationAmount(int)}
+     *
+     * @param x parameter X of the field
+     * @return the amount of vegetation on a field
+     */
+    public double vegetationAmount(int x) {
+        double exponent = Math.exp(get(Parameter.VEGETATION_STEEPNESS) * (x - get(Parameter.VEGETATION_MIDPOINT)));
+        return get(Parameter.VEGETATION_SCALE) * exponent / (1 + exponent);
+    }
+
+    /**
+     * Builds the table of payoffs, big enough for X values of the longest matches
+     *
+     * @return Precomputed payoffs for {@link GameRules#vegetationAmount(int)}
+     */
+    public PayoffTable createPayoffTable() {
+        long maxX = 1 + (long) getInt(Parameter.MAX_ROUNDS) * Math.max(0, getInt(Parameter.FIELD_GROWTH));
+        int size = (int) Math.max(PayoffTable.DEFAULT_SIZE, Math.min(maxX + 1, 1 << 24));
+        return new PayoffTable(this::vegetationAmount, size);
+    }
+
+    /**
+     * Chooses the amount of rounds the same way as the {@link Tournament} does
+     *
+     * @param random Random generator of the tournament
+     * @return Amount of rounds in each match
+     * @throws IllegalStateException if the minimal amount of rounds is bigger than the maximal one
+     */
+    public int chooseNumberOfRounds(Random random) {
+        int min = getInt(Parameter.MIN_ROUNDS), max = getInt(Parameter.MAX_ROUNDS);
+        if (min < 0 || min > max) {
+            throw new IllegalStateException(String.format("Invalid range of rounds from %d to %d", min, max));
+        }
+        return random.nextInt(min, max);
+    }
+
+    /**
+     * Applies the knobs of the strategies to the players.
+     * Players, whose strategies have no knobs, are returned as they are
+     *
+     * @param players Players of the tournament, usually {@link Tournament#createPlayers()}
+     * @return New list, where players with knobs are replaced with the ones, configured by these rules
+     */
+    public List<Player> configure(List<Player> players) {
+        List<Player> configured = new ArrayList<>(players.size());
+        for (Player player : players) {
+            if (player.getClass() == CoopPlayer.class) {
+                configured.add(new CoopPlayer(getInt(Parameter.COOP_TIMES_TO_WAIT)));
+            } else {
+                configured.add(player);
+            }
+        }
+        return configured;
+    }
+
+    /**
+     * Configures the tournament to use the dynamics of fields of these rules
+     *
+     * @param tournament The tournament
+     * @return The same tournament, for convenience
+     */
+    public ParallelTournament configure(ParallelTournament tournament) {
+        return tournament.setFieldDynamics(getInt(Parameter.FIELD_DECREASE), getInt(Parameter.FIELD_GROWTH));
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof GameRules)) return false;
+        return Arrays.equals(values, ((GameRules) o).values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    /**
+     * @return Values of all parameters, for example {@code vegetation_scale=10 ... coop_times_to_wait=5}
+     */
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder();
+        for (Parameter parameter : Parameter.values()) {
+            if (result.length() > 0) {
+                result.append(' ');
+            }
+            result.append(parameter.getName()).append('=').append(format(parameter, get(parameter)));
+        }
+        return result.toString();
+    }
+
+    /**
+     * Formats the value of the parameter without unnecessary zeroes
+     *
+     * @param parameter The parameter
+     * @param value Its value
+     * @return Integer parameters as integers, and others as the shortest exact decimal representation
+     */
+    static String format(Parameter parameter, double value) {
+        return parameter.isInteger() ? Long.toString((long) value) : Double.toString(value);
+    }
+
+}
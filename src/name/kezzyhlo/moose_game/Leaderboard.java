@@ -0,0 +1,122 @@
+package name.kezzyhlo.moose_game;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Standings, which are updated by many threads while the tournament is running, and can be read at any moment.
+ *
+ * Each player has an immutable entry with the amount of matches, the mean payoff per round
+ * and the sum of squared deviations from it. A result replaces the entry with the updated one
+ * by compare-and-set, so writers never block each other or readers, and each entry is always consistent.
+ * Players are updated independently, so threads contend only when they finish matches of the same player
+ * at the same moment. A {@link Leaderboard#snapshot() snapshot} copies all entries into {@link Standings},
+ * which give the ranking and the confidence interval of each player.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Leaderboard implements ResultListener {
+
+    /**
+     * Current entry of each player
+     */
+    private final AtomicReferenceArray<Entry> entries;
+
+    /**
+     * Amount of rounds in each match, by which the scores are divided
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Amount of finished matches
+     */
+    private final LongAdder matches = new LongAdder();
+
+    /**
+     * Creates empty leaderboard
+     *
+     * @param size Amount of players
+     * @param numberOfRounds Amount of rounds in each match
+     */
+    public Leaderboard(int size, int numberOfRounds) {
+        this.entries = new AtomicReferenceArray<>(size);
+        this.numberOfRounds = numberOfRounds;
+        for (int i = 0; i < size; i++) {
+            entries.set(i, Entry.EMPTY);
+        }
+    }
+
+    @Override
+    public void matchFinished(int match, int player1, int player2, double score1, double score2) {
+        add(player1, score1 / numberOfRounds);
+        add(player2, score2 / numberOfRounds);
+        matches.increment();
+    }
+
+    /**
+     * Adds the result of one match of the player
+     *
+     * @param player Index of the player
+     * @param payoff Average payoff per round of the player in the match
+     */
+    public void add(int player, double payoff) {
+        entries.getAndUpdate(player, entry -> entry.add(payoff));
+    }
+
+    /**
+     * @return Amount of players
+     */
+    public int size() {
+        return entries.length();
+    }
+
+    /**
+     * @return Amount of matches, finished so far
+     */
+    public long getFinishedMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * Copies current results of all players.
+     * Results are added in the order, in which matches finish, so means may differ in the last digits
+     * from the ones, summed in the order of the schedule
+     *
+     * @return New standings, which are not changed by the following results
+     */
+    public Standings snapshot() {
+        Standings standings = new Standings(size());
+        for (int i = 0; i < size(); i++) {
+            Entry entry = entries.get(i);
+            standings.set(i, entry.matches, entry.mean, entry.deviations);
+        }
+        return standings;
+    }
+
+    /**
+     * Results of one player, updated by Welford's algorithm, the same way as in {@link Standings#add(int, double)}
+     */
+    private static final class Entry {
+
+        private static final Entry EMPTY = new Entry(0, 0, 0);
+
+        private final int matches;
+        private final double mean;
+        private final double deviations;
+
+        private Entry(int matches, double mean, double deviations) {
+            this.matches = matches;
+            this.mean = mean;
+            this.deviations = deviations;
+        }
+
+        private Entry add(double payoff) {
+            int count = matches + 1;
+            double delta = payoff - mean;
+            double newMean = mean + delta / count;
+            return new Entry(count, newMean, deviations + delta * (payoff - newMean));
+        }
+
+    }
+
+}
@@ -67,9 +67,21 @@ public final class Log {
      * @see Log#LOG_LEVEL
      */
     public static void log(LogLevel level, String format, Object... args) {
-        if (level.ordinal() <= LOG_LEVEL.ordinal()) {
+        if (isEnabled(level)) {
             System.out.printf(format, args);
         }
     }
 
+    /**
+     * Checks whether messages of the given {@code level} will be printed.
+     * Should be used before {@link Log#log} calls in hot loops,
+     * so that the arguments are not even created when the level is disabled
+     *
+     * @param level Level of the message
+     * @return {@code true} if {@code level} is less than or equal to {@link Log#LOG_LEVEL}
+     */
+    public static boolean isEnabled(LogLevel level) {
+        return level.ordinal() <= LOG_LEVEL.ordinal();
+    }
+
 }
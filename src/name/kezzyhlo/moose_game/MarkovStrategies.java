@@ -0,0 +1,276 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.*;
+
+
+/**
+ * This class contains {@link MarkovStrategy} descriptions of bundled strategies.
+ * Each of them should make moves with exactly the same probabilities as the original {@link Player}.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MarkovStrategies {
+
+    /**
+     * No instances needed for this class
+     */
+    private MarkovStrategies() {}
+
+    /**
+     * Description of {@link RandomPlayer}.
+     * It also describes {@link RandomNonRepeatablePlayer}, which never remembers its previous move,
+     * so it actually never excludes anything
+     */
+    public static final MarkovStrategy RANDOM = new MarkovStrategy() {
+
+        @Override
+        public boolean observesOpponent() {
+            return false;
+        }
+
+        @Override
+        public void moves(int state, int opponentLastMove, int xA, int xB, int xC, double[] probabilities) {
+            probabilities[1] = 1.0 / 3;
+            probabilities[2] = 1.0 / 3;
+            probabilities[3] = 1.0 / 3;
+        }
+
+    };
+
+    /**
+     * Description of {@link BestFieldPlayer}
+     */
+    public static final MarkovStrategy BEST_FIELD = new MarkovStrategy() {
+
+        @Override
+        public boolean observesOpponent() {
+            return false;
+        }
+
+        @Override
+        public void moves(int state, int opponentLastMove, int xA, int xB, int xC, double[] probabilities) {
+            clear(probabilities);
+            bestFieldMoves(xA, xB, xC, probabilities, 1);
+        }
+
+    };
+
+    /**
+     * Description of {@link CopycatPlayer}
+     */
+    public static final MarkovStrategy COPYCAT = (state, opponentLastMove, xA, xB, xC, probabilities) -> {
+        clear(probabilities);
+        copycatMoves(opponentLastMove, xA, xB, xC, probabilities, 1);
+    };
+
+    /**
+     * Description of {@link MixedBestCopyPlayer}, which chooses one of its two tactics with equal probability
+     */
+    public static final MarkovStrategy MIXED_BEST_COPY = (state, opponentLastMove, xA, xB, xC, probabilities) -> {
+        clear(probabilities);
+        copycatMoves(opponentLastMove, xA, xB, xC, probabilities, 0.5);
+        bestFieldMoves(xA, xB, xC, probabilities, 0.5);
+    };
+
+    /**
+     * Description of {@link AlwaysSamePlayer}. The state is the chosen move minus one
+     */
+    public static final MarkovStrategy ALWAYS_SAME = new MarkovStrategy() {
+
+        @Override
+        public int stateCount() {
+            return 3;
+        }
+
+        @Override
+        public boolean observesOpponent() {
+            return false;
+        }
+
+        @Override
+        public void initialStates(double[] probabilities) {
+            probabilities[0] = 1.0 / 3;
+            probabilities[1] = 1.0 / 3;
+            probabilities[2] = 1.0 / 3;
+        }
+
+        @Override
+        public void moves(int state, int opponentLastMove, int xA, int xB, int xC, double[] probabilities) {
+            probabilities[1] = state == 0 ? 1 : 0;
+            probabilities[2] = state == 1 ? 1 : 0;
+            probabilities[3] = state == 2 ? 1 : 0;
+        }
+
+    };
+
+    /**
+     * Description of {@link CoopPlayer} with the default {@link CoopPlayer#TIMES_TO_WAIT}
+     */
+    public static final MarkovStrategy COOP = new CoopStrategy();
+
+    /**
+     * Returns description of the strategy of the given player
+     *
+     * @param prototype Player, whose strategy is needed
+     * @return Description of the strategy, or {@code null} if the strategy is unknown
+     */
+    public static MarkovStrategy forPlayer(Player prototype) {
+        Class<? extends Player> playerClass = prototype.getClass();
+        if (playerClass == RandomPlayer.class) return RANDOM;
+        if (playerClass == RandomNonRepeatablePlayer.class) return RANDOM;
+        if (playerClass == BestFieldPlayer.class) return BEST_FIELD;
+        if (playerClass == CopycatPlayer.class) return COPYCAT;
+        if (playerClass == MixedBestCopyPlayer.class) return MIXED_BEST_COPY;
+        if (playerClass == AlwaysSamePlayer.class) return ALWAYS_SAME;
+        if (playerClass == CoopPlayer.class && prototype.getParameters().isEmpty()) return COOP;
+        return null;
+    }
+
+    /**
+     * Adds probabilities of {@link BestFieldPlayer#bestFieldMove} moves, multiplied by {@code weight}
+     */
+    private static void bestFieldMoves(int xA, int xB, int xC, double[] probabilities, double weight) {
+        int maxValue = Math.max(xA, Math.max(xB, xC));
+        int maxCount = (xA == maxValue ? 1 : 0) + (xB == maxValue ? 1 : 0) + (xC == maxValue ? 1 : 0);
+        double probability = weight / maxCount;
+        if (xA == maxValue) probabilities[1] += probability;
+        if (xB == maxValue) probabilities[2] += probability;
+        if (xC == maxValue) probabilities[3] += probability;
+    }
+
+    /**
+     * Adds probabilities of {@link CopycatPlayer#copycatMove} moves, multiplied by {@code weight}
+     */
+    private static void copycatMoves(
+            int opponentLastMove, int xA, int xB, int xC, double[] probabilities, double weight
+    ) {
+        if (opponentLastMove <= 0 || opponentLastMove > 3) {
+            probabilities[1] += weight / 3;
+            probabilities[2] += weight / 3;
+            probabilities[3] += weight / 3;
+        } else if (x(opponentLastMove, xA, xB, xC) != 0) {
+            probabilities[opponentLastMove] += weight;
+        } else {
+            int move1 = (opponentLastMove != 1) ? 1 : 2;
+            int move2 = 1 + 2 + 3 - opponentLastMove - move1;
+            if (x(move1, xA, xB, xC) == 0) {
+                probabilities[move2] += weight;
+            } else if (x(move2, xA, xB, xC) == 0) {
+                probabilities[move1] += weight;
+            } else {
+                probabilities[move1] += weight / 2;
+                probabilities[move2] += weight / 2;
+            }
+        }
+    }
+
+    private static void clear(double[] probabilities) {
+        probabilities[1] = 0;
+        probabilities[2] = 0;
+        probabilities[3] = 0;
+    }
+
+    private static int x(int field, int xA, int xB, int xC) {
+        switch (field) {
+            case 1: return xA;
+            case 2: return xB;
+            default: return xC;
+        }
+    }
+
+    /**
+     * Description of {@link CoopPlayer}. All fields of the player are packed into the state:
+     * stage, last move, move to wait, move to eat and the amount of times already waited.
+     * In the stage, where the opponent is not cooperating, the player uses {@link MarkovStrategies#MIXED_BEST_COPY}
+     */
+    private static final class CoopStrategy implements MarkovStrategy {
+
+        private static final int START = 0;
+        private static final int WAIT = 1;
+        private static final int EAT = 2;
+        private static final int NOT_COOP = 3;
+
+        @Override
+        public int stateCount() {
+            return 4 * 4 * 4 * 4 * (CoopPlayer.TIMES_TO_WAIT + 1);
+        }
+
+        @Override
+        public void moves(int state, int opponentLastMove, int xA, int xB, int xC, double[] probabilities) {
+            int next = nextState(state, opponentLastMove, 0);
+            int stage = stage(next);
+            if (stage == NOT_COOP) {
+                MIXED_BEST_COPY.moves(0, opponentLastMove, xA, xB, xC, probabilities);
+            } else if (stage == START) {
+                RANDOM.moves(0, opponentLastMove, xA, xB, xC, probabilities);
+            } else {
+                clear(probabilities);
+                probabilities[myLastMove(next)] = 1;
+            }
+        }
+
+        /**
+         * Repeats the logic of {@link CoopPlayer#move(int, int, int, int)}.
+         * If the move is random, {@code move} is remembered as the chosen one
+         */
+        @Override
+        public int nextState(int state, int opponentLastMove, int move) {
+            int stage = stage(state), myLastMove = myLastMove(state);
+            int waitMove = waitMove(state), eatMove = eatMove(state), timesWaited = timesWaited(state);
+
+            if (stage == START) {
+                if (opponentLastMove == myLastMove) {
+                    return state(START, move, waitMove, eatMove, timesWaited);
+                } else {
+                    stage = WAIT;
+                    eatMove = myLastMove;
+                    waitMove = 1 + 2 + 3 - myLastMove - opponentLastMove;
+                }
+            } else if (opponentLastMove == eatMove) {
+                stage = NOT_COOP;
+            }
+
+            if (stage == WAIT) {
+                if (timesWaited < CoopPlayer.TIMES_TO_WAIT) {
+                    return state(WAIT, waitMove, waitMove, eatMove, timesWaited + 1);
+                } else {
+                    stage = EAT;
+                }
+            }
+
+            if (stage == EAT) {
+                return state(EAT, myLastMove == waitMove ? eatMove : waitMove, waitMove, eatMove, timesWaited);
+            }
+
+            return state(NOT_COOP, myLastMove, waitMove, eatMove, timesWaited);
+        }
+
+        private static int state(int stage, int myLastMove, int waitMove, int eatMove, int timesWaited) {
+            if ((myLastMove | waitMove | eatMove) >>> 2 != 0) {
+                throw new IllegalStateException("Move is out of range: " + myLastMove + ", " + waitMove + ", " + eatMove);
+            }
+            return (((timesWaited * 4 + eatMove) * 4 + waitMove) * 4 + myLastMove) * 4 + stage;
+        }
+
+        private static int stage(int state) {
+            return state % 4;
+        }
+
+        private static int myLastMove(int state) {
+            return state / 4 % 4;
+        }
+
+        private static int waitMove(int state) {
+            return state / 16 % 4;
+        }
+
+        private static int eatMove(int state) {
+            return state / 64 % 4;
+        }
+
+        private static int timesWaited(int state) {
+            return state / 256;
+        }
+
+    }
+
+}
@@ -0,0 +1,67 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Strategy, described as a finite probabilistic machine, for {@link ExactSolver}.
+ *
+ * The machine has a finite amount of internal states. In each round, it gives the probability
+ * of each move, depending on its state, the last move of the opponent and X values of the fields.
+ * After the move is chosen, the next state depends only on the chosen move, so that all randomness
+ * of the strategy is in the probabilities of moves.
+ *
+ * @see MarkovStrategies
+ */
+public interface MarkovStrategy {
+
+    /**
+     * @return Amount of internal states, not more than {@link ExactSolver#MAX_STRATEGY_STATES}
+     */
+    default int stateCount() {
+        return 1;
+    }
+
+    /**
+     * Writes the probability of each internal state before the first round.
+     * By default, the machine always starts in the state {@code 0}
+     *
+     * @param probabilities Array of {@link MarkovStrategy#stateCount()} zeros, which should be filled
+     */
+    default void initialStates(double[] probabilities) {
+        probabilities[0] = 1;
+    }
+
+    /**
+     * Tells whether the moves and the states depend on the last move of the opponent.
+     * If they do not, the solver does not need to remember that move, which reduces the amount of states a lot
+     *
+     * @return {@code true} by default
+     */
+    default boolean observesOpponent() {
+        return true;
+    }
+
+    /**
+     * Writes the probability of each move
+     *
+     * @param state Current internal state
+     * @param opponentLastMove The last move of the opponent, {@code 0} for the first round
+     * @param xA The argument X for a field A
+     * @param xB The argument X for a field B
+     * @param xC The argument X for a field C
+     * @param probabilities Array, to which probabilities of moves 1, 2 and 3 should be written at the same indexes
+     */
+    void moves(int state, int opponentLastMove, int xA, int xB, int xC, double[] probabilities);
+
+    /**
+     * Returns the state after the move. By default, the machine has only one state
+     *
+     * @param state Current internal state
+     * @param opponentLastMove The last move of the opponent, {@code 0} for the first round
+     * @param move The move, which was chosen
+     * @return The next internal state
+     */
+    default int nextState(int state, int opponentLastMove, int move) {
+        return state;
+    }
+
+}
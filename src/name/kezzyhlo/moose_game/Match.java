@@ -0,0 +1,594 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.GameState;
+import name.kezzyhlo.moose_game.players.Player;
+
+
+/**
+ * One match between two players, consisting of several rounds.
+ * Each match should get its own player instances, so that different matches can be played concurrently.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Match {
+
+    /**
+     * Default decrease of X of a field, on which a player eats, so that together with the growth it decreases by 1
+     */
+    public static final int DEFAULT_FIELD_DECREASE = 2;
+
+    /**
+     * Default growth of X of every field after each round
+     */
+    public static final int DEFAULT_FIELD_GROWTH = 1;
+
+    /**
+     * The first player of the match
+     */
+    private final Player player1;
+
+    /**
+     * The second player of the match
+     */
+    private final Player player2;
+
+    /**
+     * Amount of rounds in this match
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Table, which is used to calculate payoffs
+     */
+    private final PayoffTable payoffs;
+
+    /**
+     * Random generator of the match, from which generators of both players are derived
+     */
+    private final Random random;
+
+    /**
+     * How much X of a field decreases, when a player eats on it, before it grows
+     */
+    private int fieldDecrease = DEFAULT_FIELD_DECREASE;
+
+    /**
+     * How much X of every field grows after each round
+     */
+    private int fieldGrowth = DEFAULT_FIELD_GROWTH;
+
+    /**
+     * Whether remaining repetitions of the cycle are skipped, when the match becomes periodic
+     */
+    private boolean fastForward = true;
+
+    /**
+     * Sink, which receives events of the match, or {@code null} if nobody is interested in them
+     */
+    private EventSink events = ConsoleEventSink.forLogLevel();
+
+    /**
+     * Identifier of the match, given to the {@link Match#events}
+     */
+    private long matchId = 0;
+
+    /**
+     * Metrics, to which timings of this match are added, or {@code null} if they are not needed
+     */
+    private Metrics metrics = null;
+
+    /**
+     * Limits of the time of moves, or {@code null} if players are called directly without any limits
+     */
+    private TimeBudget timeBudget = null;
+
+    /**
+     * Whether some player exceeded the {@link Match#timeBudget} in the last {@link Match#play()}
+     */
+    private boolean timedOut = false;
+
+    /**
+     * Total payoff of the first player, available after {@link Match#play()}
+     */
+    private double score1 = 0;
+
+    /**
+     * Total payoff of the second player, available after {@link Match#play()}
+     */
+    private double score2 = 0;
+
+    /**
+     * Creates the match with unseeded random generator, but does not play it
+     *
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param numberOfRounds Amount of rounds in the match
+     */
+    public Match(Player player1, Player player2, int numberOfRounds) {
+        this(player1, player2, numberOfRounds, Tournament.PAYOFF_TABLE);
+    }
+
+    /**
+     * Creates the match with custom payoffs and unseeded random generator, but does not play it
+     *
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param numberOfRounds Amount of rounds in the match
+     * @param payoffs Table, which is used to calculate payoffs
+     */
+    public Match(Player player1, Player player2, int numberOfRounds, PayoffTable payoffs) {
+        this(player1, player2, numberOfRounds, payoffs, new Random());
+    }
+
+    /**
+     * Creates the match with custom payoffs and random generator, but does not play it.
+     * Matches with the same players and the same seed of {@code random} give the same results
+     *
+     * @param player1 The first player
+     * @param player2 The second player
+     * @param numberOfRounds Amount of rounds in the match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Random generator of the match
+     */
+    public Match(Player player1, Player player2, int numberOfRounds, PayoffTable payoffs, Random random) {
+        this.player1 = player1;
+        this.player2 = player2;
+        this.numberOfRounds = numberOfRounds;
+        this.payoffs = payoffs;
+        this.random = random;
+    }
+
+    /**
+     * Sets the sink, which will receive events of this match.
+     * By default, it is {@link ConsoleEventSink#forLogLevel()}
+     *
+     * @param events The sink, or {@code null} if no events are needed
+     * @param matchId Identifier of this match, unique within the tournament
+     * @return this match, for convenience
+     */
+    public Match setEvents(EventSink events, long matchId) {
+        this.events = events;
+        this.matchId = matchId;
+        return this;
+    }
+
+    /**
+     * Changes the rules of how fields grow and are eaten.
+     * By default, X of eaten fields decreases by {@link Match#DEFAULT_FIELD_DECREASE}
+     * and then X of all fields grows by {@link Match#DEFAULT_FIELD_GROWTH}.
+     * Other engines, such as {@link BatchSimulator} and {@link ExactSolver}, always use the default rules
+     *
+     * @param decrease How much X of a field decreases, when somebody eats on it
+     * @param growth How much X of every field grows after each round
+     * @return this match, for convenience
+     */
+    public Match setFieldDynamics(int decrease, int growth) {
+        this.fieldDecrease = decrease;
+        this.fieldGrowth = growth;
+        return this;
+    }
+
+    /**
+     * Enables or disables skipping of periodic matches. By default, it is enabled:
+     * when the state of the match, {@link Player#getStateKey(GameState) states} of both players and their random
+     * generators repeat, payoffs of the cycle are multiplied by the amount of its remaining repetitions
+     * instead of playing them.
+     * Scores may then differ from the played ones in the last digits, because the payoffs are summed up
+     * in a different order. Rounds are never skipped, when somebody listens to the events or time budget is set
+     *
+     * @param fastForward {@code false} if every round should be played
+     * @return this match, for convenience
+     */
+    public Match setFastForward(boolean fastForward) {
+        this.fastForward = fastForward;
+        return this;
+    }
+
+    /**
+     * Sets the metrics, to which the time of each move and of the whole match will be added.
+     * By default, nothing is measured
+     *
+     * @param metrics The metrics, or {@code null} if nothing should be measured
+     * @return this match, for convenience
+     */
+    public Match setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Sets the limits of the time, which players may spend on their moves.
+     * By default, players are called directly, and nothing stops a player, which hangs
+     *
+     * @param timeBudget The limits, or {@code null} if players should not be limited
+     * @return this match, for convenience
+     */
+    public Match setTimeBudget(TimeBudget timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
+
+    /**
+     * Resets both players and plays all rounds of the match, summing up the payoffs of both players
+     *
+     * @return this match, for convenience
+     */
+    public Match play() {
+        timedOut = false;
+        if (timeBudget != null) {
+            return playLimited(metrics == null ? null : metrics.startMatch(player1, player2));
+        }
+        if (metrics != null) {
+            return playMeasured(metrics.startMatch(player1, player2));
+        }
+
+        // initialize players and the game
+        Random random1 = random.split(1), random2 = random.split(2);
+        player1.reset(random1);
+        player2.reset(random2);
+        score1 = 0;
+        score2 = 0;
+        int[] x = {-1, 1, 1, 1};
+        int[] prevMoves = {0, 0};
+        GameState state1 = new PlayerView(x, prevMoves, 0);
+        GameState state2 = new PlayerView(x, prevMoves, 1);
+        EventSink.MatchListener listener = events == null
+                ? null
+                : events.matchStarted(matchId, player1, player2, numberOfRounds);
+        CycleDetector cycles = fastForward && listener == null
+                ? new CycleDetector(player1, player2, state1, state2, random1, random2)
+                : null;
+
+        for (int i = 0; i < numberOfRounds; i++) {
+
+            // skip the rest of the match, if it has become periodic
+            if (cycles != null) {
+                int cycle = cycles.check(i, x, prevMoves, score1, score2);
+                if (cycle > 0) {
+                    i = skipCycles(cycles, cycle, i);
+                    cycles = null;
+                    if (i == numberOfRounds) break;
+                }
+            }
+
+            // get players' moves
+            int move1 = player1.move(state1);
+            int move2 = player2.move(state2);
+
+            // update players' scores
+            score1 += payoffs.payoff(x, move1, move2);
+            score2 += payoffs.payoff(x, move2, move1);
+
+            // report detailed info
+            if (listener != null) {
+                listener.roundPlayed(i, x, move1, move2, score1, score2);
+            }
+
+            // update the X values of all fields
+            updateFields(x, move1, move2);
+
+            // save moves for later
+            prevMoves[0] = move1;
+            prevMoves[1] = move2;
+
+        }
+        player1.matchFinished();
+        player2.matchFinished();
+        if (listener != null) {
+            listener.matchFinished(score1, score2);
+        }
+
+        return this;
+    }
+
+    /**
+     * The same as {@link Match#play()}, but measures the time of resets and of each move.
+     * It is a separate method, so that the usual one does not pay for the measurements
+     */
+    private Match playMeasured(Metrics.MatchRecorder recorder) {
+
+        // initialize players and the game
+        Random random1 = random.split(1), random2 = random.split(2);
+        long time = System.nanoTime();
+        player1.reset(random1);
+        long now = System.nanoTime();
+        recorder.reset(0, now - time);
+        time = now;
+        player2.reset(random2);
+        now = System.nanoTime();
+        recorder.reset(1, now - time);
+        score1 = 0;
+        score2 = 0;
+        int[] x = {-1, 1, 1, 1};
+        int[] prevMoves = {0, 0};
+        GameState state1 = new PlayerView(x, prevMoves, 0);
+        GameState state2 = new PlayerView(x, prevMoves, 1);
+        EventSink.MatchListener listener = events == null
+                ? null
+                : events.matchStarted(matchId, player1, player2, numberOfRounds);
+        CycleDetector cycles = fastForward && listener == null
+                ? new CycleDetector(player1, player2, state1, state2, random1, random2)
+                : null;
+
+        for (int i = 0; i < numberOfRounds; i++) {
+
+            // skipped rounds are not measured, since nobody moves in them
+            if (cycles != null) {
+                int cycle = cycles.check(i, x, prevMoves, score1, score2);
+                if (cycle > 0) {
+                    i = skipCycles(cycles, cycle, i);
+                    cycles = null;
+                    if (i == numberOfRounds) break;
+                }
+            }
+
+            // get players' moves, measuring the time of each of them
+            time = System.nanoTime();
+            int move1 = player1.move(state1);
+            now = System.nanoTime();
+            recorder.move(0, i, now - time);
+            time = now;
+            int move2 = player2.move(state2);
+            now = System.nanoTime();
+            recorder.move(1, i, now - time);
+
+            // the rest of the round is the same as in play()
+            score1 += payoffs.payoff(x, move1, move2);
+            score2 += payoffs.payoff(x, move2, move1);
+            if (listener != null) {
+                listener.roundPlayed(i, x, move1, move2, score1, score2);
+            }
+            updateFields(x, move1, move2);
+            prevMoves[0] = move1;
+            prevMoves[1] = move2;
+
+        }
+        player1.matchFinished();
+        player2.matchFinished();
+        if (listener != null) {
+            listener.matchFinished(score1, score2);
+        }
+        recorder.finish(numberOfRounds);
+
+        return this;
+    }
+
+    /**
+     * The same as {@link Match#play()}, but players are called through the guards of the {@link Match#timeBudget},
+     * and both of them think on their moves concurrently.
+     * Timings are taken from the guards, so they include handing the calls over to other threads
+     */
+    private Match playLimited(Metrics.MatchRecorder recorder) {
+
+        // initialize players and the game
+        TimeBudget.Guard guard1 = timeBudget.guard(player1);
+        TimeBudget.Guard guard2 = timeBudget.guard(player2);
+        guard1.startReset(random.split(1));
+        guard2.startReset(random.split(2));
+        guard1.finishReset();
+        guard2.finishReset();
+        if (recorder != null) {
+            recorder.reset(0, guard1.getLastNanos());
+            recorder.reset(1, guard2.getLastNanos());
+        }
+        score1 = 0;
+        score2 = 0;
+        int[] x = {-1, 1, 1, 1};
+        int[] prevMoves = {0, 0};
+        GameState state1 = new PlayerView(x, prevMoves, 0);
+        GameState state2 = new PlayerView(x, prevMoves, 1);
+        EventSink.MatchListener listener = events == null
+                ? null
+                : events.matchStarted(matchId, player1, player2, numberOfRounds);
+
+        for (int i = 0; i < numberOfRounds; i++) {
+
+            // get players' moves, or fallback moves of the players, who did not answer in time
+            guard1.startMove(state1);
+            guard2.startMove(state2);
+            int move1 = guard1.finishMove(i);
+            int move2 = guard2.finishMove(i);
+            if (recorder != null) {
+                recorder.move(0, i, guard1.getLastNanos());
+                recorder.move(1, i, guard2.getLastNanos());
+            }
+
+            // the rest of the round is the same as in play()
+            score1 += payoffs.payoff(x, move1, move2);
+            score2 += payoffs.payoff(x, move2, move1);
+            if (listener != null) {
+                listener.roundPlayed(i, x, move1, move2, score1, score2);
+            }
+            updateFields(x, move1, move2);
+            prevMoves[0] = move1;
+            prevMoves[1] = move2;
+
+        }
+
+        // forfeited players lose everything they have got in this match
+        if (guard1.isForfeited()) {
+            score1 = 0;
+        }
+        if (guard2.isForfeited()) {
+            score2 = 0;
+        }
+        timedOut = guard1.isOverrun() || guard2.isOverrun();
+        guard1.finishMatch();
+        guard2.finishMatch();
+        if (listener != null) {
+            listener.matchFinished(score1, score2);
+        }
+        if (recorder != null) {
+            recorder.finish(numberOfRounds);
+        }
+
+        return this;
+    }
+
+    /**
+     * Adds payoffs of all whole repetitions of the cycle, which fit into the remaining rounds.
+     * The state of the match and of the players after them is the same as now, so the match continues from here
+     *
+     * @return The round, from which the match should continue
+     */
+    private int skipCycles(CycleDetector cycles, int cycle, int round) {
+        int repeats = (numberOfRounds - round) / cycle;
+        score1 += repeats * cycles.getCycleScore1();
+        score2 += repeats * cycles.getCycleScore2();
+        return round + repeats * cycle;
+    }
+
+    /**
+     * Decreases X of the chosen fields and increases X of all fields, by default by 2 and by 1,
+     * so that X of chosen fields decreases by 1. X does not become negative
+     */
+    private void updateFields(int[] x, int move1, int move2) {
+        if (move1 >= 1 && move1 <= 3) {
+            x[move1] -= fieldDecrease;
+        }
+        if (move1 != move2 && move2 >= 1 && move2 <= 3) {
+            x[move2] -= fieldDecrease;
+        }
+        for (int j = 1; j <= x.length - 1; j++) {
+            x[j] += fieldGrowth;
+            if (x[j] < 0) {
+                x[j] = 0;
+            }
+        }
+    }
+
+    /**
+     * @return The first player of the match
+     */
+    public Player getPlayer1() {
+        return player1;
+    }
+
+    /**
+     * @return The second player of the match
+     */
+    public Player getPlayer2() {
+        return player2;
+    }
+
+    /**
+     * @return Amount of rounds in this match
+     */
+    public int getNumberOfRounds() {
+        return numberOfRounds;
+    }
+
+    /**
+     * @return Table, which is used to calculate payoffs
+     */
+    public PayoffTable getPayoffs() {
+        return payoffs;
+    }
+
+    /**
+     * @return How much X of a field decreases, when somebody eats on it
+     */
+    public int getFieldDecrease() {
+        return fieldDecrease;
+    }
+
+    /**
+     * @return How much X of every field grows after each round
+     */
+    public int getFieldGrowth() {
+        return fieldGrowth;
+    }
+
+    /**
+     * @return Random generator of the match
+     */
+    public Random getRandom() {
+        return random;
+    }
+
+    /**
+     * Matches, in which some player did not answer in time, do not represent the strategies,
+     * and their results should not be reused
+     *
+     * @return {@code true} if some player exceeded the time budget in the last {@link Match#play()}
+     */
+    public boolean isTimedOut() {
+        return timedOut;
+    }
+
+    /**
+     * @return Total payoff of the first player
+     */
+    public double getScore1() {
+        return score1;
+    }
+
+    /**
+     * @return Total payoff of the second player
+     */
+    public double getScore2() {
+        return score2;
+    }
+
+    /**
+     * {@link GameState} of one of the players, backed by the arrays of the match
+     */
+    private static final class PlayerView implements GameState {
+
+        private final int[] x;
+        private final int[] prevMoves;
+        private final int me;
+
+        private PlayerView(int[] x, int[] prevMoves, int me) {
+            this.x = x;
+            this.prevMoves = prevMoves;
+            this.me = me;
+        }
+
+        @Override
+        public int getX(int field) {
+            return x[field];
+        }
+
+        @Override
+        public int getOpponentLastMove() {
+            return prevMoves[1 - me];
+        }
+
+        @Override
+        public int getMyLastMove() {
+            return prevMoves[me];
+        }
+
+        @Override
+        public int getMyIndex() {
+            return me;
+        }
+
+        @Override
+        public int getLastMove(int player) {
+            return prevMoves[player];
+        }
+
+        @Override
+        public int getBestX() {
+            return Math.max(x[1], Math.max(x[2], x[3]));
+        }
+
+        @Override
+        public int getBestFieldCount() {
+            int best = getBestX();
+            return (x[1] == best ? 1 : 0) + (x[2] == best ? 1 : 0) + (x[3] == best ? 1 : 0);
+        }
+
+        @Override
+        public int getBestField(int k) {
+            int best = getBestX(), skip = k;
+            if (x[1] == best && skip-- == 0) return 1;
+            if (x[2] == best && skip-- == 0) return 2;
+            if (x[3] == best && skip == 0) return 3;
+            throw new IllegalArgumentException("There are less than " + (k + 1) + " best fields");
+        }
+
+    }
+
+}
@@ -0,0 +1,149 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Determinism;
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Remembers results of matches between deterministic strategies, so that the same match is not played twice.
+ *
+ * Results are reused only if both players declare their {@link Determinism}:
+ * if both are {@link Determinism#FULL}, the seed of the match does not matter,
+ * and if one of them is {@link Determinism#SEEDED}, only matches with the same seed are considered the same.
+ * The key also contains classes and {@link Player#getParameters() parameters} of both players,
+ * amount of rounds, the payoff table and the dynamics of fields. Matches, which {@link Match#isTimedOut() timed out}, are not remembered.
+ *
+ * The cache is thread-safe. If the same match is played concurrently by two threads,
+ * both of them play it, but the result is the same anyway.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class MatchCache {
+
+    private final Map<Key, double[]> results = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Checks whether results of matches between such players can be reused
+     *
+     * @param player1 The first player
+     * @param player2 The second player
+     * @return {@code true} if both players are at least {@link Determinism#SEEDED}
+     */
+    public static boolean isCacheable(Player player1, Player player2) {
+        return player1.getDeterminism() != Determinism.NONE && player2.getDeterminism() != Determinism.NONE;
+    }
+
+    /**
+     * Returns the result of the match, playing it only if the same match was not played before
+     *
+     * @param match The match to play
+     * @return Scores of the first and the second player
+     */
+    public double[] play(Match match) {
+        Player player1 = match.getPlayer1(), player2 = match.getPlayer2();
+        if (!isCacheable(player1, player2)) {
+            match.play();
+            return new double[] {match.getScore1(), match.getScore2()};
+        }
+
+        Key key = new Key(match);
+        double[] result = results.get(key);
+        if (result != null) {
+            hits.increment();
+            return result.clone();
+        }
+        misses.increment();
+        match.play();
+        result = new double[] {match.getScore1(), match.getScore2()};
+        if (!match.isTimedOut()) {
+            results.putIfAbsent(key, result);
+        }
+        return result.clone();
+    }
+
+    /**
+     * @return Amount of matches, which were taken from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return Amount of cacheable matches, which had to be played
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return Amount of remembered results
+     */
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * Everything that defines the result of a match between deterministic strategies
+     */
+    private static final class Key {
+
+        private final Class<? extends Player> class1;
+        private final String parameters1;
+        private final Class<? extends Player> class2;
+        private final String parameters2;
+        private final long seed;
+        private final long gamma;
+        private final int numberOfRounds;
+        private final PayoffTable payoffs;
+        private final int fieldDecrease;
+        private final int fieldGrowth;
+
+        private Key(Match match) {
+            Player player1 = match.getPlayer1(), player2 = match.getPlayer2();
+            boolean seeded = player1.getDeterminism() == Determinism.SEEDED
+                    || player2.getDeterminism() == Determinism.SEEDED;
+            class1 = player1.getClass();
+            parameters1 = player1.getParameters();
+            class2 = player2.getClass();
+            parameters2 = player2.getParameters();
+            seed = seeded ? match.getRandom().getSeed() : 0;
+            gamma = seeded ? match.getRandom().getGamma() : 0;
+            numberOfRounds = match.getNumberOfRounds();
+            payoffs = match.getPayoffs();
+            fieldDecrease = match.getFieldDecrease();
+            fieldGrowth = match.getFieldGrowth();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return seed == key.seed
+                    && gamma == key.gamma
+                    && numberOfRounds == key.numberOfRounds
+                    && class1 == key.class1
+                    && class2 == key.class2
+                    && payoffs == key.payoffs
+                    && fieldDecrease == key.fieldDecrease
+                    && fieldGrowth == key.fieldGrowth
+                    && parameters1.equals(key.parameters1)
+                    && parameters2.equals(key.parameters2);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(
+                    class1, parameters1, class2, parameters2, seed, gamma, numberOfRounds, payoffs, fieldDecrease, fieldGrowth
+            );
+        }
+
+    }
+
+}
@@ -0,0 +1,146 @@
+package name.kezzyhlo.moose_game;
+
+import java.util.Arrays;
+
+
+/**
+ * Segment tree over integer values, which keeps the maximum of each subtree and how many leaves reach it.
+ * Changing one value, finding the maximum, the amount of maximal values and the {@code k}-th of them
+ * take {@code O(log n)} time, so the best of hundreds of fields is found without scanning all of them.
+ *
+ * The tree is stored in two primitive arrays, as a binary heap: the root is at index {@code 1},
+ * children of node {@code i} are at {@code 2i} and {@code 2i + 1}, and leaves start at the first power of two,
+ * which is not less than the amount of values. Unused leaves hold {@link Integer#MIN_VALUE} and are not counted.
+ */
+final class MaxTree {
+
+    /**
+     * Index of the first leaf
+     */
+    private final int leaves;
+
+    /**
+     * Amount of values
+     */
+    private final int size;
+
+    /**
+     * Maximal value in the subtree of each node
+     */
+    private final int[] max;
+
+    /**
+     * Amount of values, equal to the maximum, in the subtree of each node
+     */
+    private final int[] count;
+
+    /**
+     * Creates the tree with all values equal to {@code 0}
+     *
+     * @param size Amount of values, at least one
+     */
+    MaxTree(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size of the tree should be positive, got " + size);
+        }
+        int power = Integer.highestOneBit(size);
+        this.leaves = power == size ? size : power * 2;
+        this.size = size;
+        this.max = new int[2 * this.leaves];
+        this.count = new int[2 * this.leaves];
+        Arrays.fill(max, this.leaves + size, 2 * this.leaves, Integer.MIN_VALUE);
+        Arrays.fill(count, this.leaves, this.leaves + size, 1);
+        for (int node = this.leaves - 1; node >= 1; node--) {
+            pull(node);
+        }
+    }
+
+    /**
+     * @return Amount of values
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * @param index Index of the value, from {@code 0}
+     * @return The value
+     */
+    int get(int index) {
+        return max[leaves + index];
+    }
+
+    /**
+     * Changes one value and updates its ancestors
+     *
+     * @param index Index of the value, from {@code 0}
+     * @param value New value
+     */
+    void set(int index, int value) {
+        int node = leaves + index;
+        max[node] = value;
+        for (node >>>= 1; node >= 1; node >>>= 1) {
+            pull(node);
+        }
+    }
+
+    /**
+     * @return The biggest of all values
+     */
+    int max() {
+        return max[1];
+    }
+
+    /**
+     * @return Amount of values, equal to {@link MaxTree#max()}
+     */
+    int countMax() {
+        return count[1];
+    }
+
+    /**
+     * Finds one of the biggest values, going down only into the subtrees, which contain the maximum
+     *
+     * @param k Index among the biggest values, from {@code 0} to {@link MaxTree#countMax()} - 1
+     * @return Index of the {@code k}-th biggest value, in the order of indexes
+     * @throws IllegalArgumentException if there are not so many biggest values
+     */
+    int selectMax(int k) {
+        if (k < 0 || k >= count[1]) {
+            throw new IllegalArgumentException("There are " + count[1] + " biggest values, asked for #" + k);
+        }
+        int best = max[1];
+        int node = 1;
+        while (node < leaves) {
+            int left = 2 * node;
+            if (max[left] == best) {
+                if (k < count[left]) {
+                    node = left;
+                    continue;
+                }
+                k -= count[left];
+            }
+            node = left + 1;
+        }
+        return node - leaves;
+    }
+
+    /**
+     * Recalculates the maximum of the node and its count from its children
+     */
+    private void pull(int node) {
+        int left = 2 * node, right = left + 1;
+        int maxLeft = max[left], maxRight = max[right];
+        if (maxLeft > maxRight) {
+            max[node] = maxLeft;
+            count[node] = count[left];
+        } else if (maxLeft < maxRight) {
+            max[node] = maxRight;
+            count[node] = count[right];
+        } else {
+            max[node] = maxLeft;
+            count[node] = count[left] + count[right];
+        }
+    }
+
+}
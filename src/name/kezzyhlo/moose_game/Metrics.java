@@ -0,0 +1,434 @@
+package name.kezzyhlo.moose_game;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Collects timings of matches, grouped by the class of the strategy:
+ * latency of each move as a histogram, time of {@link Player#reset(Random)},
+ * duration of matches and the amount of memory allocated during them.
+ *
+ * Matches record their moves into a {@link MatchRecorder}, which is local to the match,
+ * and merge it into these metrics once at the end, so playing threads do not contend on each move.
+ *
+ * The same information is available to Java Flight Recorder:
+ * each match produces {@code name.kezzyhlo.moose_game.Match} event,
+ * and each move, which takes more than {@link Metrics#SLOW_MOVE_NANOS}, produces
+ * {@code name.kezzyhlo.moose_game.SlowMove} event, so a pathological strategy can be found in the recording.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Metrics {
+
+    /**
+     * Amount of histogram buckets. Bucket {@code k} counts moves, which took from {@code 2^(k-1)}
+     * to {@code 2^k - 1} nanoseconds, and the last one counts all longer moves
+     */
+    public static final int BUCKETS = 40;
+
+    /**
+     * Moves, which take longer than this amount of nanoseconds, are reported as slow
+     */
+    public static final long SLOW_MOVE_NANOS = 1_000_000;
+
+    /**
+     * Used to measure allocations of the current thread, or {@code null} if the JVM does not support it
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = allocationBean();
+
+    private final Map<Class<? extends Player>, StrategyMetrics> strategies = new ConcurrentHashMap<>();
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder rounds = new LongAdder();
+    private final LongAdder matchNanos = new LongAdder();
+    private final long createdNanos = System.nanoTime();
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean allocations = (com.sun.management.ThreadMXBean) bean;
+            if (allocations.isThreadAllocatedMemorySupported() && allocations.isThreadAllocatedMemoryEnabled()) {
+                return allocations;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return Amount of bytes, allocated by the current thread so far, or {@code 0} if it can not be measured
+     */
+    static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    /**
+     * Starts recording of one match
+     *
+     * @param player1 The first player of the match
+     * @param player2 The second player of the match
+     * @return Recorder, which should be used only by the thread playing the match
+     */
+    public MatchRecorder startMatch(Player player1, Player player2) {
+        return new MatchRecorder(player1, player2);
+    }
+
+    /**
+     * @param strategy Class of the strategy
+     * @return Metrics of the strategy, or {@code null} if it has not played yet
+     */
+    public StrategyMetrics getStrategy(Class<? extends Player> strategy) {
+        return strategies.get(strategy);
+    }
+
+    /**
+     * @return Amount of recorded matches
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * @return Amount of rounds in all recorded matches
+     */
+    public long getRounds() {
+        return rounds.sum();
+    }
+
+    /**
+     * @return Amount of rounds per second of the wall time since these metrics were created
+     */
+    public double getRoundsPerSecond() {
+        return rounds.sum() * 1e9 / Math.max(1, System.nanoTime() - createdNanos);
+    }
+
+    /**
+     * Prints the table with metrics of each strategy, from the slowest to the fastest by the mean move time
+     *
+     * @param level Level of the messages
+     */
+    public void printSummary(Log.LogLevel level) {
+        if (!Log.isEnabled(level)) {
+            return;
+        }
+        long matchCount = matches.sum();
+        Log.log(
+                level,
+                "Matches: %d, rounds: %d, total match time: %.3f s, rounds per second: %.0f\n",
+                matchCount, rounds.sum(), matchNanos.sum() / 1e9, getRoundsPerSecond()
+        );
+        Log.log(
+                level, "%30s %12s %10s %10s %10s %12s %10s %12s %14s %6s\n",
+                "Strategy", "Moves", "Mean, ns", "p50, ns", "p99, ns", "Max, ns",
+                "Reset, ns", "Match, us", "Alloc/match", "Slow"
+        );
+
+        List<StrategyMetrics> sorted = new ArrayList<>(strategies.values());
+        sorted.sort(Comparator.comparingDouble(StrategyMetrics::getMeanMoveNanos).reversed());
+        for (StrategyMetrics strategy : sorted) {
+            Log.log(
+                    level, "%30s %12d %10.0f %10d %10d %12d %10.0f %12.1f %14s %6d\n",
+                    strategy.getName(),
+                    strategy.getMoves(),
+                    strategy.getMeanMoveNanos(),
+                    strategy.getMovePercentile(0.5),
+                    strategy.getMovePercentile(0.99),
+                    strategy.getMaxMoveNanos(),
+                    strategy.getMeanResetNanos(),
+                    strategy.getMeanMatchNanos() / 1e3,
+                    THREADS == null ? "n/a" : String.format("%.0f", strategy.getMeanAllocatedBytes()),
+                    strategy.getSlowMoves()
+            );
+        }
+        Log.log(level, "\n");
+    }
+
+    /**
+     * Metrics of one strategy class, accumulated over all its matches
+     */
+    public static final class StrategyMetrics {
+
+        private final Class<? extends Player> strategy;
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final LongAdder moves = new LongAdder();
+        private final LongAdder moveNanos = new LongAdder();
+        private final LongAccumulator maxMoveNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder slowMoves = new LongAdder();
+        private final LongAdder resetNanos = new LongAdder();
+        private final LongAdder matches = new LongAdder();
+        private final LongAdder matchNanos = new LongAdder();
+        private final LongAdder allocatedBytes = new LongAdder();
+
+        private StrategyMetrics(Class<? extends Player> strategy) {
+            this.strategy = strategy;
+        }
+
+        /**
+         * @return Simple name of the strategy class
+         */
+        public String getName() {
+            return strategy.getSimpleName();
+        }
+
+        /**
+         * @return Amount of moves made by the strategy
+         */
+        public long getMoves() {
+            return moves.sum();
+        }
+
+        /**
+         * @return Mean time of one move in nanoseconds
+         */
+        public double getMeanMoveNanos() {
+            return (double) moveNanos.sum() / Math.max(1, moves.sum());
+        }
+
+        /**
+         * Estimates the percentile of move times from the histogram
+         *
+         * @param fraction Fraction of moves, from {@code 0} to {@code 1}
+         * @return Upper bound of the histogram bucket, in which the percentile is, in nanoseconds
+         */
+        public long getMovePercentile(double fraction) {
+            long total = 0;
+            for (int k = 0; k < BUCKETS; k++) {
+                total += histogram.get(k);
+            }
+            long target = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int k = 0; k < BUCKETS; k++) {
+                seen += histogram.get(k);
+                if (seen >= target && seen > 0) {
+                    return (1L << k) - 1;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * @return The longest move in nanoseconds
+         */
+        public long getMaxMoveNanos() {
+            return maxMoveNanos.get();
+        }
+
+        /**
+         * @return Amount of moves, which took more than {@link Metrics#SLOW_MOVE_NANOS}
+         */
+        public long getSlowMoves() {
+            return slowMoves.sum();
+        }
+
+        /**
+         * @return Mean time of {@link Player#reset(Random)} in nanoseconds
+         */
+        public double getMeanResetNanos() {
+            return (double) resetNanos.sum() / Math.max(1, matches.sum());
+        }
+
+        /**
+         * @return Mean duration of the matches of this strategy in nanoseconds
+         */
+        public double getMeanMatchNanos() {
+            return (double) matchNanos.sum() / Math.max(1, matches.sum());
+        }
+
+        /**
+         * Allocations are measured for the whole match, so they include allocations of the opponent.
+         * Bundled strategies and the match itself do not allocate during the match,
+         * so a strategy, which allocates a lot, stands out in all its matches
+         *
+         * @return Mean amount of bytes, allocated during the matches of this strategy
+         */
+        public double getMeanAllocatedBytes() {
+            return (double) allocatedBytes.sum() / Math.max(1, matches.sum());
+        }
+
+    }
+
+    /**
+     * Collects metrics of one match without any synchronization,
+     * and merges them into {@link Metrics} in {@link MatchRecorder#finish(int)}
+     */
+    public final class MatchRecorder {
+
+        private final Player player1;
+        private final Player player2;
+        private final MatchEvent event = new MatchEvent();
+        private final long startNanos;
+        private final long startAllocated;
+        private final long[] histogram1 = new long[BUCKETS];
+        private final long[] histogram2 = new long[BUCKETS];
+        private long moveNanos1 = 0, moveNanos2 = 0;
+        private long maxMoveNanos1 = 0, maxMoveNanos2 = 0;
+        private long slowMoves1 = 0, slowMoves2 = 0;
+        private long resetNanos1 = 0, resetNanos2 = 0;
+
+        private MatchRecorder(Player player1, Player player2) {
+            this.player1 = player1;
+            this.player2 = player2;
+            this.event.begin();
+            this.startAllocated = allocatedBytes();
+            this.startNanos = System.nanoTime();
+        }
+
+        /**
+         * Records the time of {@link Player#reset(Random)}
+         *
+         * @param player {@code 0} for the first player, {@code 1} for the second one
+         * @param nanos Time in nanoseconds
+         */
+        public void reset(int player, long nanos) {
+            if (player == 0) {
+                resetNanos1 += nanos;
+            } else {
+                resetNanos2 += nanos;
+            }
+        }
+
+        /**
+         * Records the time of one move
+         *
+         * @param player {@code 0} for the first player, {@code 1} for the second one
+         * @param round Number of the round, starting from {@code 0}
+         * @param nanos Time in nanoseconds
+         */
+        public void move(int player, int round, long nanos) {
+            int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(nanos));
+            if (player == 0) {
+                histogram1[bucket]++;
+                moveNanos1 += nanos;
+                maxMoveNanos1 = Math.max(maxMoveNanos1, nanos);
+            } else {
+                histogram2[bucket]++;
+                moveNanos2 += nanos;
+                maxMoveNanos2 = Math.max(maxMoveNanos2, nanos);
+            }
+
+            if (nanos > SLOW_MOVE_NANOS) {
+                if (player == 0) {
+                    slowMoves1++;
+                } else {
+                    slowMoves2++;
+                }
+                SlowMoveEvent slow = new SlowMoveEvent();
+                if (slow.isEnabled()) {
+                    slow.strategy = (player == 0 ? player1 : player2).getClass().getName();
+                    slow.round = round;
+                    slow.nanos = nanos;
+                    slow.commit();
+                }
+            }
+        }
+
+        /**
+         * Merges metrics of the match into {@link Metrics} and commits the flight recorder event
+         *
+         * @param numberOfRounds Amount of rounds in the match
+         */
+        public void finish(int numberOfRounds) {
+            long nanos = System.nanoTime() - startNanos;
+            long allocated = allocatedBytes() - startAllocated;
+            matches.increment();
+            rounds.add(numberOfRounds);
+            matchNanos.add(nanos);
+            merge(player1, histogram1, moveNanos1, maxMoveNanos1, slowMoves1, resetNanos1, nanos, allocated);
+            merge(player2, histogram2, moveNanos2, maxMoveNanos2, slowMoves2, resetNanos2, nanos, allocated);
+
+            event.end();
+            if (event.shouldCommit()) {
+                event.player1 = player1.getClass().getName();
+                event.player2 = player2.getClass().getName();
+                event.rounds = numberOfRounds;
+                event.allocated = allocated;
+                event.commit();
+            }
+        }
+
+        private void merge(
+                Player player, long[] histogram, long moveNanos, long maxMoveNanos, long slowMoves,
+                long resetNanos, long matchNanos, long allocated
+        ) {
+            StrategyMetrics strategy = strategies.computeIfAbsent(player.getClass(), StrategyMetrics::new);
+            long moves = 0;
+            for (int k = 0; k < BUCKETS; k++) {
+                if (histogram[k] != 0) {
+                    strategy.histogram.addAndGet(k, histogram[k]);
+                    moves += histogram[k];
+                }
+            }
+            strategy.moves.add(moves);
+            strategy.moveNanos.add(moveNanos);
+            strategy.maxMoveNanos.accumulate(maxMoveNanos);
+            strategy.slowMoves.add(slowMoves);
+            strategy.resetNanos.add(resetNanos);
+            strategy.matches.increment();
+            strategy.matchNanos.add(matchNanos);
+            strategy.allocatedBytes.add(allocated);
+        }
+
+    }
+
+    /**
+     * Flight recorder event of one match.
+     * Event classes are public, since the flight recorder does not record events of non-public classes
+     */
+    @Name("name.kezzyhlo.moose_game.Match")
+    @Label("Match")
+    @Category("Moose Game")
+    @Description("One match between two strategies")
+    public static final class MatchEvent extends Event {
+
+        @Label("First Strategy")
+        String player1;
+
+        @Label("Second Strategy")
+        String player2;
+
+        @Label("Rounds")
+        int rounds;
+
+        @Label("Allocated")
+        @DataAmount
+        long allocated;
+
+    }
+
+    /**
+     * Flight recorder event of one move, which took more than {@link Metrics#SLOW_MOVE_NANOS}
+     */
+    @Name("name.kezzyhlo.moose_game.SlowMove")
+    @Label("Slow Move")
+    @Category("Moose Game")
+    @Description("A move, which took more than a millisecond")
+    public static final class SlowMoveEvent extends Event {
+
+        @Label("Strategy")
+        String strategy;
+
+        @Label("Round")
+        int round;
+
+        @Label("Move Time")
+        @Timespan
+        long nanos;
+
+    }
+
+}
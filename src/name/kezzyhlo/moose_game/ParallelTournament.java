@@ -0,0 +1,493 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+
+/**
+ * Tournament engine, which plays matches of the {@link Schedule} concurrently using fork-join pool.
+ * By default, each unordered pair of players plays once, and both players are credited with their scores.
+ * Players given to this class are used only as prototypes:
+ * each match gets its own freshly created instances of the same classes,
+ * so stateful strategies do not interfere with each other.
+ * Each match also gets its own random generator, derived from the master one,
+ * so the results are the same for the same seed, regardless of the amount of threads.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ParallelTournament {
+
+    /**
+     * Matches are not split into smaller tasks if there are no more than this amount of them
+     */
+    private static final int MATCHES_PER_TASK = 4;
+
+    /**
+     * Prototypes of the players. They are never used for playing directly.
+     */
+    private final List<Player> players;
+
+    /**
+     * Amount of rounds in each match
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Table, which is used to calculate payoffs
+     */
+    private final PayoffTable payoffs;
+
+    /**
+     * Master random generator. Generator of each match is derived from it using index of the match
+     */
+    private final Random random;
+
+    /**
+     * The pool, in which matches are played, or {@code null} if each call plays them one by one
+     * in its own pool with one thread, which is shut down after the call
+     */
+    private final ForkJoinPool pool;
+
+    /**
+     * Sink, which receives events of all matches, or {@code null}
+     */
+    private EventSink events = ConsoleEventSink.forLogLevel();
+
+    /**
+     * Matches, which should be played, or {@code null} for the default round robin.
+     * The default is created lazily, since it is too big for big populations
+     */
+    private Schedule schedule;
+
+    /**
+     * Cache of results of deterministic matches, or {@code null}
+     */
+    private MatchCache cache = null;
+
+    /**
+     * Metrics, to which timings of all matches are added, or {@code null}
+     */
+    private Metrics metrics = null;
+
+    /**
+     * Limits of the time of moves in all matches, or {@code null}
+     */
+    private TimeBudget timeBudget = null;
+
+    /**
+     * Saved results of finished matches, or {@code null}
+     */
+    private Checkpoint checkpoint = null;
+
+    /**
+     * Listener, which receives the result of each match as soon as it is finished, or {@code null}
+     */
+    private ResultListener resultListener = null;
+
+    /**
+     * Whether all matches between the same classes with the same parameters get the same random generator
+     */
+    private boolean sharedSeeds = false;
+
+    /**
+     * Whether periodic matches skip their remaining repetitions
+     */
+    private boolean fastForward = true;
+
+    /**
+     * How much X of a field decreases, when somebody eats on it
+     */
+    private int fieldDecrease = Match.DEFAULT_FIELD_DECREASE;
+
+    /**
+     * How much X of every field grows after each round
+     */
+    private int fieldGrowth = Match.DEFAULT_FIELD_GROWTH;
+
+    /**
+     * Creates tournament, which runs on the common fork-join pool.
+     * If the {@link Log#LOG_LEVEL} is {@link Log.LogLevel#LOG_MOVES},
+     * matches are played one by one, so that logs of different matches are not mixed.
+     *
+     * @param players Prototypes of the players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Master random generator
+     */
+    public ParallelTournament(List<Player> players, int numberOfRounds, PayoffTable payoffs, Random random) {
+        this(
+                players, numberOfRounds, payoffs, random,
+                Log.isEnabled(Log.LogLevel.LOG_MOVES) ? null : ForkJoinPool.commonPool()
+        );
+    }
+
+    /**
+     * Creates tournament, which runs on the given pool
+     *
+     * @param players Prototypes of the players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Master random generator
+     * @param pool The pool, in which matches will be played, or {@code null} to play them one by one
+     *             in a pool with one thread, which is created and shut down by each call
+     */
+    public ParallelTournament(
+            List<Player> players, int numberOfRounds, PayoffTable payoffs, Random random, ForkJoinPool pool
+    ) {
+        this.players = players;
+        this.numberOfRounds = numberOfRounds;
+        this.payoffs = payoffs;
+        this.random = random;
+        this.pool = pool;
+    }
+
+    /**
+     * Sets the sink, which will receive events of all matches.
+     * By default, it is {@link ConsoleEventSink#forLogLevel()}.
+     * Id of each match is its index in the {@link Schedule}
+     *
+     * @param events The sink, or {@code null} if no events are needed
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setEvents(EventSink events) {
+        this.events = events;
+        return this;
+    }
+
+    /**
+     * Sets the matches, which should be played.
+     * By default, it is {@link RoundRobinSchedule#unorderedPairs(int, int)} with one repeat
+     *
+     * @param schedule Matches, where players are referred to by their indexes in the list of players
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setSchedule(Schedule schedule) {
+        this.schedule = schedule;
+        return this;
+    }
+
+    /**
+     * Sets the cache, which allows not to play again matches, which are known to give the same result.
+     * Matches taken from the cache do not produce any events
+     *
+     * @param cache The cache, or {@code null} if all matches should be played
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setCache(MatchCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Sets the metrics, which will receive timings of all played matches.
+     * Matches taken from the cache are not measured
+     *
+     * @param metrics The metrics, or {@code null} if nothing should be measured
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setMetrics(Metrics metrics) {
+        this.metrics = metrics;
+        return this;
+    }
+
+    /**
+     * Sets the limits of the time, which players may spend on their moves in each match.
+     * A player, which hangs, then loses only its own matches, while other matches keep running
+     *
+     * @param timeBudget The limits, or {@code null} if players should not be limited
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setTimeBudget(TimeBudget timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
+
+    /**
+     * Sets the checkpoint, to which the result of each match is saved as soon as it is finished.
+     * Matches, whose results are already in the checkpoint, are not played again and do not produce any events
+     *
+     * @param checkpoint The checkpoint of this tournament, opened with its {@link ParallelTournament#fingerprint()},
+     *                   or {@code null} if results should not be saved
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setCheckpoint(Checkpoint checkpoint) {
+        this.checkpoint = checkpoint;
+        return this;
+    }
+
+    /**
+     * Sets the listener, which receives the result of each match as soon as it is finished,
+     * for example a {@link Leaderboard}, which can be looked at while the tournament is running.
+     * Matches, restored from the checkpoint, are passed to the listener too, when their turn comes
+     *
+     * @param resultListener The listener, or {@code null} if results are needed only at the end
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setResultListener(ResultListener resultListener) {
+        this.resultListener = resultListener;
+        return this;
+    }
+
+    /**
+     * Makes the random generator of each match depend only on classes and parameters of its players,
+     * instead of the index of the match.
+     * Then several copies of the same strategy all play exactly the same matches,
+     * and with {@link ParallelTournament#setCache(MatchCache)} each such match is played only once
+     *
+     * @param sharedSeeds {@code true} if matches between the same strategies should get the same generator
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setSharedSeeds(boolean sharedSeeds) {
+        this.sharedSeeds = sharedSeeds;
+        return this;
+    }
+
+    /**
+     * Enables or disables skipping of periodic matches in all matches, as {@link Match#setFastForward(boolean)}
+     *
+     * @param fastForward {@code false} if every round should be played
+     * @return this tournament, for convenience
+     */
+    public ParallelTournament setFastForward(boolean fastForward) {
+        this.fastForward = fastForward;
+        return this;
+    }
+
+    /**
+     * Changes the rules of how fields grow and are eaten in all matches
+     *
+     * @param decrease How much X of a field decreases, when somebody eats on it
+     * @param growth How much X of every field grows after each round
+     * @return this tournament, for convenience
+     * @see Match#setFieldDynamics(int, int)
+     */
+    public ParallelTournament setFieldDynamics(int decrease, int growth) {
+        this.fieldDecrease = decrease;
+        this.fieldGrowth = growth;
+        return this;
+    }
+
+    /**
+     * Plays all matches of the schedule.
+     * Scores are added to the matrix in the order of the schedule,
+     * so the result does not depend on the order, in which matches were played.
+     *
+     * @return Scores of all players against each other
+     */
+    public ScoreMatrix play() {
+        int size = schedule().size();
+        double[][] scores = playMatches();
+        double[] scores1 = scores[0], scores2 = scores[1];
+
+        ScoreMatrix result = new ScoreMatrix(players.size());
+        for (int k = 0; k < size; k++) {
+            result.add(schedule.player1(k), schedule.player2(k), scores1[k], scores2[k]);
+        }
+        return result;
+    }
+
+    /**
+     * Plays all matches of the schedule and adds average payoffs per round of both players to the standings.
+     * Unlike {@link ParallelTournament#play()}, it does not need memory for each pair of players,
+     * so it is suitable for big populations with sampled schedules
+     *
+     * @param standings Standings, to which results are added in the order of the schedule
+     * @return The same standings, for convenience
+     */
+    public Standings play(Standings standings) {
+        int size = schedule().size();
+        double[][] scores = playMatches();
+        double[] scores1 = scores[0], scores2 = scores[1];
+
+        for (int k = 0; k < size; k++) {
+            standings.add(schedule.player1(k), scores1[k] / numberOfRounds);
+            standings.add(schedule.player2(k), scores2[k] / numberOfRounds);
+        }
+        return standings;
+    }
+
+    /**
+     * Plays all matches of the schedule and returns total payoffs of both players in each of them,
+     * so that the caller can decide, whom to credit
+     *
+     * @return Two arrays of payoffs, of the first and of the second players, indexed by the match in the schedule
+     */
+    public double[][] playMatches() {
+        return playMatches(0, schedule().size());
+    }
+
+    /**
+     * Plays only the matches of the schedule with indexes from {@code from} (inclusive) to {@code to} (exclusive).
+     * Each match gets the same random generator and id as in the whole schedule,
+     * so the whole tournament can be split into parts, which are played separately, for example in different processes
+     *
+     * @param from Index of the first match
+     * @param to Index after the last match
+     * @return Two arrays of payoffs, of the first and of the second players, at indexes relative to {@code from}
+     */
+    public double[][] playMatches(int from, int to) {
+        schedule();
+        double[] scores1 = new double[to - from];
+        double[] scores2 = new double[to - from];
+        MatchesTask task = new MatchesTask(scores1, scores2, from, from, to);
+        if (pool != null) {
+            pool.invoke(task);
+        } else {
+            ForkJoinPool sequential = new ForkJoinPool(1);
+            try {
+                sequential.invoke(task);
+            } finally {
+                sequential.shutdown();
+            }
+        }
+        return new double[][] {scores1, scores2};
+    }
+
+    /**
+     * Hashes everything, which defines the results of matches: the master random generator, the payoffs,
+     * amount of rounds, classes and parameters of players and the schedule.
+     * Tournaments with the same fingerprint give the same results, so it identifies their {@link Checkpoint}
+     *
+     * @return Fingerprint of this tournament
+     */
+    public long fingerprint() {
+        long hash = 31L * random.getSeed() + random.getGamma();
+        hash = 31L * hash + Arrays.hashCode(payoffs.gains());
+        hash = 31L * hash + numberOfRounds;
+        hash = 31L * hash + (sharedSeeds ? 1 : 0);
+        hash = 31L * hash + fieldDecrease;
+        hash = 31L * hash + fieldGrowth;
+        if (!fastForward) {
+            // played rounds may differ from skipped ones in the last digits
+            hash = 31L * hash + 1;
+        }
+        for (Player player : players) {
+            hash = 31L * hash + strategyHash(player);
+        }
+        Schedule schedule = schedule();
+        hash = 31L * hash + schedule.size();
+        for (int k = 0; k < schedule.size(); k++) {
+            hash = 31L * hash + schedule.player1(k);
+            hash = 31L * hash + schedule.player2(k);
+        }
+        return hash;
+    }
+
+    private Schedule schedule() {
+        if (schedule == null) {
+            schedule = RoundRobinSchedule.unorderedPairs(players.size(), 1);
+        }
+        return schedule;
+    }
+
+    /**
+     * Creates new instance of the same strategy as the {@code prototype}
+     *
+     * @param prototype The player, whose strategy should be instantiated
+     * @return Fresh player instance
+     * @throws IllegalStateException if the class can not be instantiated
+     * @see Player#newInstance()
+     */
+    public static Player newInstance(Player prototype) {
+        try {
+            return prototype.newInstance();
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Can not create " + prototype.getClass().getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Creates the random generator of the match with the given index in the schedule
+     */
+    private Random matchRandom(int index, Player player1, Player player2) {
+        if (!sharedSeeds) {
+            return random.split(index);
+        }
+        long pairing = 31L * strategyHash(player1) + strategyHash(player2);
+        return random.split(pairing);
+    }
+
+    private static long strategyHash(Player player) {
+        return 31L * player.getClass().getName().hashCode() + player.getParameters().hashCode();
+    }
+
+    /**
+     * Task, which plays matches of the schedule with indexes from {@code from} (inclusive) to {@code to} (exclusive)
+     * and saves scores of players at the same indexes minus {@code offset}.
+     * Tasks are never serialized, they only inherit {@link java.io.Serializable} from {@link RecursiveAction}
+     */
+    @SuppressWarnings("serial")
+    private final class MatchesTask extends RecursiveAction {
+
+        private final double[] scores1;
+        private final double[] scores2;
+        private final int offset;
+        private final int from;
+        private final int to;
+
+        private MatchesTask(double[] scores1, double[] scores2, int offset, int from, int to) {
+            this.scores1 = scores1;
+            this.scores2 = scores2;
+            this.offset = offset;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > MATCHES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(
+                        new MatchesTask(scores1, scores2, offset, from, middle),
+                        new MatchesTask(scores1, scores2, offset, middle, to)
+                );
+                return;
+            }
+
+            for (int index = from; index < to; index++) {
+                int result = index - offset;
+                if (checkpoint != null && checkpoint.isDone(index)) {
+                    scores1[result] = checkpoint.getScore1(index);
+                    scores2[result] = checkpoint.getScore2(index);
+                    finished(index, scores1[result], scores2[result]);
+                    continue;
+                }
+
+                Player player1 = newInstance(players.get(schedule.player1(index)));
+                Player player2 = newInstance(players.get(schedule.player2(index)));
+                Match match = new Match(
+                        player1,
+                        player2,
+                        numberOfRounds,
+                        payoffs,
+                        matchRandom(index, player1, player2)
+                ).setEvents(events, index).setMetrics(metrics).setTimeBudget(timeBudget)
+                        .setFieldDynamics(fieldDecrease, fieldGrowth).setFastForward(fastForward);
+                if (cache != null) {
+                    double[] scores = cache.play(match);
+                    scores1[result] = scores[0];
+                    scores2[result] = scores[1];
+                } else {
+                    match.play();
+                    scores1[result] = match.getScore1();
+                    scores2[result] = match.getScore2();
+                }
+                if (checkpoint != null) {
+                    checkpoint.save(index, scores1[result], scores2[result]);
+                }
+                finished(index, scores1[result], scores2[result]);
+            }
+        }
+
+        private void finished(int index, double score1, double score2) {
+            if (resultListener != null) {
+                resultListener.matchFinished(index, schedule.player1(index), schedule.player2(index), score1, score2);
+            }
+        }
+
+    }
+
+}
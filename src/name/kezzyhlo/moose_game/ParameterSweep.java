@@ -0,0 +1,517 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+
+/**
+ * Plays one tournament for each point of a grid of {@link GameRules}, or of a random sample of this grid,
+ * and collects average payoffs of each strategy in all of them into one table.
+ *
+ * Points are played concurrently, each of them by its own {@link ParallelTournament} in the common fork-join pool,
+ * so matches of all points share the processors. Every point uses the same seed, so it gets the same
+ * random generators, and the differences between points are caused by the parameters, not by chance.
+ *
+ * The table is a CSV file with one row per point. It is also the cache: each row starts with the hash of the seed,
+ * the parameters and the players, and points, whose hash is already in the table, are not played again.
+ * Rows are appended as soon as their points are finished, so an interrupted sweep loses only unfinished points.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ParameterSweep {
+
+    /**
+     * Values of the parameters, which are swept by {@link ParameterSweep#main(String[])}.
+     * Other parameters keep their default values
+     */
+    private static final Map<GameRules.Parameter, double[]> GRID = new EnumMap<>(GameRules.Parameter.class);
+    static {
+        GRID.put(GameRules.Parameter.VEGETATION_STEEPNESS, new double[] {0.5, 1, 2});
+        GRID.put(GameRules.Parameter.FIELD_DECREASE, new double[] {2, 3});
+        GRID.put(GameRules.Parameter.COOP_TIMES_TO_WAIT, new double[] {2, 5, 8});
+    }
+
+    /**
+     * If positive, {@link ParameterSweep#main(String[])} plays only this amount of random points of the grid
+     */
+    private static final int SAMPLES = 0;
+
+    /**
+     * Seed of all tournaments
+     */
+    private final long seed;
+
+    /**
+     * Players of all tournaments, before {@link GameRules#configure(List)}
+     */
+    private final List<Player> players;
+
+    /**
+     * Values of the swept parameters
+     */
+    private final Map<GameRules.Parameter, double[]> dimensions = new EnumMap<>(GameRules.Parameter.class);
+
+    /**
+     * Values of the parameters, which are not swept
+     */
+    private GameRules base = new GameRules();
+
+    /**
+     * Creates the sweep without any dimensions
+     *
+     * @param players Players of each tournament
+     * @param seed Seed of each tournament
+     */
+    public ParameterSweep(List<Player> players, long seed) {
+        this.players = players;
+        this.seed = seed;
+    }
+
+    /**
+     * Sets the values of the parameters, which are not swept. By default, they are the default values
+     *
+     * @param base The rules, which are copied for each point
+     * @return this sweep, for convenience
+     */
+    public ParameterSweep setBase(GameRules base) {
+        this.base = base.copy();
+        return this;
+    }
+
+    /**
+     * Adds the dimension to the grid, or replaces the values of the dimension, if it was already added
+     *
+     * @param parameter The parameter to sweep
+     * @param values Its values
+     * @return this sweep, for convenience
+     * @throws IllegalArgumentException if there are no values, or some value is not valid for the parameter
+     */
+    public ParameterSweep addDimension(GameRules.Parameter parameter, double... values) {
+        if (values.length == 0) {
+            throw new IllegalArgumentException("There should be at least one value of " + parameter.getName());
+        }
+        for (double value : values) {
+            new GameRules().set(parameter, value);
+        }
+        dimensions.put(parameter, values.clone());
+        return this;
+    }
+
+    /**
+     * @return Amount of points in the grid
+     */
+    public long gridSize() {
+        long size = 1;
+        for (double[] values : dimensions.values()) {
+            size *= values.length;
+        }
+        return size;
+    }
+
+    /**
+     * @return All points of the grid, where the last dimension changes the fastest
+     * @throws IllegalStateException if the grid is too big to be listed
+     */
+    public List<GameRules> grid() {
+        long size = gridSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalStateException("The grid of " + size + " points is too big, use a sample instead");
+        }
+        List<GameRules> points = new ArrayList<>((int) size);
+        for (int index = 0; index < size; index++) {
+            points.add(point(index));
+        }
+        return points;
+    }
+
+    /**
+     * Chooses distinct random points of the grid
+     *
+     * @param count Amount of points. If it is not less than the size of the grid, the whole grid is returned
+     * @param random Random generator, which chooses the points
+     * @return Chosen points, in the order, in which they were chosen
+     */
+    public List<GameRules> sample(int count, Random random) {
+        long size = gridSize();
+        if (count >= size) {
+            return grid();
+        }
+        Set<Long> chosen = new HashSet<>();
+        List<GameRules> points = new ArrayList<>(count);
+        while (points.size() < count) {
+            long index = size <= Integer.MAX_VALUE
+                    ? random.nextInt((int) size)
+                    : Math.floorMod(random.nextLong(), size);
+            if (chosen.add(index)) {
+                points.add(point(index));
+            }
+        }
+        return points;
+    }
+
+    /**
+     * Decodes the index of the point in the grid into the values of all dimensions
+     */
+    private GameRules point(long index) {
+        GameRules rules = base.copy();
+        List<GameRules.Parameter> parameters = new ArrayList<>(dimensions.keySet());
+        for (int d = parameters.size() - 1; d >= 0; d--) {
+            double[] values = dimensions.get(parameters.get(d));
+            rules.set(parameters.get(d), values[(int) (index % values.length)]);
+            index /= values.length;
+        }
+        return rules;
+    }
+
+    /**
+     * Plays the points, which are not in the table yet, and appends their results to it.
+     * The table is created, if it does not exist
+     *
+     * @param points Points to play
+     * @param table The CSV file with the results of all points, or {@code null} if nothing should be saved
+     * @return Results of all points, in the same order
+     * @throws IOException if the table can not be read or written
+     * @throws IllegalStateException if the table was written for other strategies
+     */
+    public List<Result> run(List<GameRules> points, Path table) throws IOException {
+        List<String> strategies = strategies(players);
+        String header = header(strategies);
+        Map<String, Result> known = table != null ? load(table, header, strategies) : new HashMap<>();
+        int restored = 0;
+        for (GameRules rules : points) {
+            if (known.containsKey(hash(rules))) {
+                restored++;
+            }
+        }
+        Log.log(Log.LogLevel.LOG_INFO, "Points: %d, restored from the table: %d\n\n", points.size(), restored);
+
+        BufferedWriter writer = table == null ? null : Files.newBufferedWriter(
+                table, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+        );
+        try {
+            if (writer != null && Files.size(table) == 0) {
+                writer.write(header);
+                writer.newLine();
+                writer.flush();
+            }
+
+            // each point is played at most once, even if it is listed several times
+            Map<String, ForkJoinTask<Result>> tasks = new LinkedHashMap<>();
+            for (GameRules rules : points) {
+                String hash = hash(rules);
+                if (!known.containsKey(hash) && !tasks.containsKey(hash)) {
+                    tasks.put(hash, ForkJoinPool.commonPool().submit(() -> {
+                        Result result = play(rules, hash);
+                        if (writer != null) {
+                            append(writer, result);
+                        }
+                        return result;
+                    }));
+                }
+            }
+
+            List<Result> results = new ArrayList<>(points.size());
+            for (GameRules rules : points) {
+                String hash = hash(rules);
+                Result result = known.get(hash);
+                results.add(result != null ? result : join(tasks.get(hash)));
+            }
+            return results;
+        } finally {
+            if (writer != null) {
+                writer.close();
+            }
+        }
+    }
+
+    /**
+     * Plays the tournament of one point
+     */
+    private Result play(GameRules rules, String hash) {
+        Random random = new Random(seed);
+        int numberOfRounds = rules.chooseNumberOfRounds(random);
+        List<Player> configured = rules.configure(players);
+        ScoreMatrix scores = rules.configure(
+                new ParallelTournament(configured, numberOfRounds, rules.createPayoffTable(), random)
+        ).setEvents(null).play();
+
+        // payoffs of all copies of the same strategy are summed up
+        List<String> strategies = strategies(configured);
+        double[] sums = new double[strategies.size()];
+        long[] matches = new long[strategies.size()];
+        for (int i = 0; i < configured.size(); i++) {
+            int s = strategies.indexOf(configured.get(i).getClass().getSimpleName());
+            sums[s] += scores.getScoreSum(i);
+            matches[s] += scores.getMatchCount(i);
+        }
+        double[] payoffs = new double[strategies.size()];
+        for (int s = 0; s < payoffs.length; s++) {
+            payoffs[s] = matches[s] == 0 ? 0 : sums[s] / numberOfRounds / matches[s];
+        }
+        Log.log(Log.LogLevel.LOG_INFO, "Finished %s\n", rules);
+        return new Result(hash, rules, numberOfRounds, payoffs);
+    }
+
+    private static Result join(ForkJoinTask<Result> task) {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the sweep", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    /**
+     * @return Names of strategies, in the order of their first players
+     */
+    private static List<String> strategies(List<Player> players) {
+        List<String> strategies = new ArrayList<>();
+        for (Player player : players) {
+            String name = player.getClass().getSimpleName();
+            if (!strategies.contains(name)) {
+                strategies.add(name);
+            }
+        }
+        return strategies;
+    }
+
+    /**
+     * Hash of everything, which defines the results of the point: the seed, the parameters and the players.
+     * It is 64-bit FNV-1a, so that it does not change between versions of Java
+     */
+    private String hash(GameRules rules) {
+        StringBuilder key = new StringBuilder().append(seed).append(';').append(rules);
+        for (Player player : players) {
+            key.append(';').append(player.getClass().getName()).append('(').append(player.getParameters()).append(')');
+        }
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < key.length(); i++) {
+            hash = (hash ^ key.charAt(i)) * 0x100000001b3L;
+        }
+        return String.format("%016x", hash);
+    }
+
+    private String header(List<String> strategies) {
+        StringBuilder header = new StringBuilder("hash,seed");
+        for (GameRules.Parameter parameter : GameRules.Parameter.values()) {
+            header.append(',').append(parameter.getName());
+        }
+        header.append(",rounds");
+        for (String strategy : strategies) {
+            header.append(',').append(strategy);
+        }
+        return header.toString();
+    }
+
+    /**
+     * Reads results of the points, which were already played. Rows, which were not written completely, are skipped.
+     * The last row is complete only if it ends with a new line, otherwise it is removed from the file,
+     * since its cut numbers could still be parsed
+     */
+    private Map<String, Result> load(Path table, String header, List<String> strategies) throws IOException {
+        Map<String, Result> known = new HashMap<>();
+        if (!Files.exists(table)) {
+            return known;
+        }
+        byte[] bytes = Files.readAllBytes(table);
+        int length = bytes.length;
+        while (length > 0 && bytes[length - 1] != '\n') {
+            length--;
+        }
+        if (length < bytes.length) {
+            try (FileChannel channel = FileChannel.open(table, StandardOpenOption.WRITE)) {
+                channel.truncate(length);
+            }
+        }
+        if (length == 0) {
+            return known;
+        }
+        List<String> lines = Arrays.asList(new String(bytes, 0, length, StandardCharsets.UTF_8).split("\r?\n"));
+        if (!lines.get(0).equals(header)) {
+            throw new IllegalStateException(table + " was written for other parameters or strategies");
+        }
+        int parameters = GameRules.Parameter.values().length;
+        for (String line : lines.subList(1, lines.size())) {
+            String[] cells = line.split(",");
+            if (cells.length != 3 + parameters + strategies.size()) {
+                continue;
+            }
+            try {
+                GameRules rules = new GameRules();
+                for (GameRules.Parameter parameter : GameRules.Parameter.values()) {
+                    rules.set(parameter, Double.parseDouble(cells[2 + parameter.ordinal()]));
+                }
+                double[] payoffs = new double[strategies.size()];
+                for (int s = 0; s < payoffs.length; s++) {
+                    payoffs[s] = Double.parseDouble(cells[3 + parameters + s]);
+                }
+                int numberOfRounds = Integer.parseInt(cells[2 + parameters]);
+                known.put(cells[0], new Result(cells[0], rules, numberOfRounds, payoffs));
+            } catch (IllegalArgumentException e) {
+                // the row was being written, when the sweep was interrupted
+            }
+        }
+        return known;
+    }
+
+    private void append(BufferedWriter writer, Result result) {
+        StringBuilder row = new StringBuilder().append(result.getHash()).append(',').append(seed);
+        for (GameRules.Parameter parameter : GameRules.Parameter.values()) {
+            row.append(',').append(GameRules.format(parameter, result.getRules().get(parameter)));
+        }
+        row.append(',').append(result.getNumberOfRounds());
+        for (int s = 0; s < result.size(); s++) {
+            row.append(',').append(String.format(Locale.ROOT, "%.10f", result.getPayoff(s)));
+        }
+        synchronized (writer) {
+            try {
+                writer.write(row.toString());
+                writer.newLine();
+                writer.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * The main method.
+     *
+     * Plays the tournament with the players of {@link Tournament#createPlayers()}
+     * for each point of {@link ParameterSweep#GRID}, or for {@link ParameterSweep#SAMPLES} random points of it,
+     * and prints average payoffs of each strategy in each point
+     *
+     * @param args Optional seed. The same seed gives the same results.
+     *             Optional second argument is the CSV table, to which results are appended, {@code sweep.csv} by default.
+     *             Optional third argument is the amount of random points, which overrides {@link ParameterSweep#SAMPLES}
+     * @throws IOException if the table can not be read or written
+     */
+    public static void main(String[] args) throws IOException {
+
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        Path table = Paths.get(args.length > 1 ? args[1] : "sweep.csv");
+        int samples = args.length > 2 ? Integer.parseInt(args[2]) : SAMPLES;
+        List<Player> players = Tournament.createPlayers();
+
+        ParameterSweep sweep = new ParameterSweep(players, seed);
+        for (Map.Entry<GameRules.Parameter, double[]> entry : GRID.entrySet()) {
+            sweep.addDimension(entry.getKey(), entry.getValue());
+        }
+        List<GameRules> points = samples > 0 ? sweep.sample(samples, new Random(seed)) : sweep.grid();
+
+        Log.log(Log.LogLevel.LOG_INFO, "Seed: %d\n", seed);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of players: %d\n", players.size());
+        Log.log(Log.LogLevel.LOG_INFO, "Table: %s\n", table);
+        List<Result> results = sweep.run(points, table);
+        Log.log(Log.LogLevel.LOG_INFO, "\n");
+
+        List<String> strategies = strategies(players);
+        StringBuilder header = new StringBuilder();
+        for (GameRules.Parameter parameter : GRID.keySet()) {
+            header.append(String.format("%22s", parameter.getName()));
+        }
+        header.append(String.format("%8s", "rounds"));
+        for (String strategy : strategies) {
+            header.append(String.format("%28s", strategy));
+        }
+        Log.log(Log.LogLevel.LOG_PAYOFFS_SUM, "%s\n", header);
+        for (Result result : results) {
+            StringBuilder row = new StringBuilder();
+            for (GameRules.Parameter parameter : GRID.keySet()) {
+                row.append(String.format("%22s", GameRules.format(parameter, result.getRules().get(parameter))));
+            }
+            row.append(String.format("%8d", result.getNumberOfRounds()));
+            for (int s = 0; s < result.size(); s++) {
+                row.append(String.format("%28.10f", result.getPayoff(s)));
+            }
+            Log.log(Log.LogLevel.LOG_PAYOFFS_SUM, "%s\n", row);
+        }
+    }
+
+    /**
+     * Average payoffs of strategies in one point of the sweep
+     */
+    public static final class Result {
+
+        private final String hash;
+        private final GameRules rules;
+        private final int numberOfRounds;
+        private final double[] payoffs;
+
+        private Result(String hash, GameRules rules, int numberOfRounds, double[] payoffs) {
+            this.hash = hash;
+            this.rules = rules;
+            this.numberOfRounds = numberOfRounds;
+            this.payoffs = payoffs;
+        }
+
+        /**
+         * @return Hash of the point, which identifies it in the table
+         */
+        public String getHash() {
+            return hash;
+        }
+
+        /**
+         * @return Values of the parameters. They must not be modified
+         */
+        public GameRules getRules() {
+            return rules;
+        }
+
+        /**
+         * @return Amount of rounds in each match
+         */
+        public int getNumberOfRounds() {
+            return numberOfRounds;
+        }
+
+        /**
+         * @return Amount of strategies
+         */
+        public int size() {
+            return payoffs.length;
+        }
+
+        /**
+         * @param strategy Index of the strategy, in the order of their first players
+         * @return Average payoff per round of all players of the strategy
+         */
+        public double getPayoff(int strategy) {
+            return payoffs[strategy];
+        }
+
+        @Override
+        public String toString() {
+            return rules + " " + Arrays.toString(payoffs);
+        }
+
+    }
+
+}
@@ -0,0 +1,114 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Calculates payoffs using the table of precomputed values of {@code f(X) - f(0)},
+ * where {@code f} is some {@link VegetationFunction}.
+ * X values of fields are small non-negative integers, so most of the time
+ * the payoff is just taken from the array, without calling the function itself.
+ * For X values outside the table, the function is called directly.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class PayoffTable {
+
+    /**
+     * Default amount of precomputed values.
+     * X value can grow by at most 1 each round, so this covers matches of up to 1000 rounds
+     */
+    public static final int DEFAULT_SIZE = 1024;
+
+    /**
+     * The function, from which the table is built
+     */
+    private final VegetationFunction vegetation;
+
+    /**
+     * Precomputed value of {@code f(0)}, used for X values outside the table
+     */
+    private final double zeroAmount;
+
+    /**
+     * Precomputed values of {@code f(X) - f(0)}, where X is the index
+     */
+    private final double[] gains;
+
+    /**
+     * Builds the table of {@link PayoffTable#DEFAULT_SIZE} values for the given function
+     *
+     * @param vegetation The function, that defines amount of vegetation on a field
+     */
+    public PayoffTable(VegetationFunction vegetation) {
+        this(vegetation, DEFAULT_SIZE);
+    }
+
+    /**
+     * Builds the table of {@code size} values for the given function
+     *
+     * @param vegetation The function, that defines amount of vegetation on a field
+     * @param size Amount of precomputed values, for X from {@code 0} to {@code size - 1}
+     */
+    public PayoffTable(VegetationFunction vegetation, int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("Size of the table should be positive, got " + size);
+        }
+        this.vegetation = vegetation;
+        this.zeroAmount = vegetation.amount(0);
+        this.gains = new double[size];
+        for (int x = 0; x < size; x++) {
+            gains[x] = vegetation.amount(x) - zeroAmount;
+        }
+    }
+
+    /**
+     * Returns the payoff of eating on a field with the given X value, which is {@code f(X) - f(0)}
+     *
+     * @param x parameter X of the field
+     * @return the payoff, which player gets for eating alone on the field
+     */
+    public double gain(int x) {
+        if (x >= 0 && x < gains.length) {
+            return gains[x];
+        }
+        return vegetation.amount(x) - zeroAmount;
+    }
+
+    /**
+     * Calculates the payoff of one player's move
+     *
+     * @param x Current values of X for each of fields
+     * @param move The move made by the player
+     * @param opponentMove The move made by the opponent
+     * @return The payoff that should be received by the player on the current move
+     * @see Tournament#payoff(int[], int, int)
+     */
+    public double payoff(int[] x, int move, int opponentMove) {
+        if (move == opponentMove) return 0;
+        if (move <= 0 || move > 3) return 0;
+        return gain(x[move]);
+    }
+
+    /**
+     * @return Amount of precomputed values
+     */
+    public int size() {
+        return gains.length;
+    }
+
+    /**
+     * Returns the precomputed values themselves, for loops which check the bounds by themselves.
+     * The value at index {@code 0} is always {@code 0}. The array must not be modified
+     *
+     * @return Precomputed values of {@code f(X) - f(0)}, where X is the index
+     */
+    double[] gains() {
+        return gains;
+    }
+
+    /**
+     * @return The function, from which the table was built
+     */
+    public VegetationFunction getVegetation() {
+        return vegetation;
+    }
+
+}
@@ -6,14 +6,200 @@ import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * This class contains functions for getting random integers, random from a list of choices, etc.
+ *
+ * Static functions use {@link ThreadLocalRandom}, so their results can not be reproduced.
+ * Instances of this class are seeded and splittable generators (SplitMix64, the same algorithm as in
+ * {@link java.util.SplittableRandom}), which are given to players by the tournament:
+ * each match gets its own generator derived from the master seed, so results of the tournament
+ * do not depend on the threads, on which matches are played.
  */
 @SuppressWarnings("WeakerAccess")
 public final class Random {
 
     /**
-     * No instances needed for this class
+     * The odd constant, closest to {@code 2^64 / phi}, used as the default gamma
      */
-    private Random() {}
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * Current state of the generator
+     */
+    private long seed;
+
+    /**
+     * Odd value, which is added to the {@link Random#seed} on each step
+     */
+    private final long gamma;
+
+    /**
+     * Creates generator with the given seed.
+     * Generators created with the same seed produce the same values
+     *
+     * @param seed Initial seed
+     */
+    public Random(long seed) {
+        this(seed, GOLDEN_GAMMA);
+    }
+
+    /**
+     * Creates generator with the random seed, for the cases when results do not need to be reproduced
+     */
+    public Random() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    private Random(long seed, long gamma) {
+        this.seed = seed;
+        this.gamma = gamma;
+    }
+
+    /**
+     * Returns new generator, which produces values independent of this one.
+     * This generator is advanced.
+     *
+     * @return New generator
+     */
+    public Random split() {
+        return new Random(nextLong(), mixGamma(nextSeed()));
+    }
+
+    /**
+     * Returns new generator, derived from the current state of this generator and the {@code index}.
+     * This generator is not advanced, so the same {@code index} always gives the same generator,
+     * no matter in which order or in which threads generators are derived.
+     *
+     * @param index Index of the derived generator, for example index of the match
+     * @return New generator
+     */
+    public Random split(long index) {
+        long indexSeed = seed + (index + 1) * GOLDEN_GAMMA;
+        return new Random(mix64(indexSeed ^ gamma), mixGamma(indexSeed + GOLDEN_GAMMA));
+    }
+
+    /**
+     * @return Random 64-bit value
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    /**
+     * Returns random integer between {@code 0} (inclusive) and {@code bound} (exclusive).
+     * Uses multiplication instead of division, which is only needed in rare cases of rejection
+     *
+     * @param bound Upper bound, should be positive
+     * @return Random integer between {@code 0} and {@code bound - 1}
+     */
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound should be positive, got " + bound);
+        }
+        long product = (nextLong() >>> 32) * bound;
+        long low = product & 0xffffffffL;
+        if (low < bound) {
+            long threshold = (0x100000000L - bound) % bound;
+            while (low < threshold) {
+                product = (nextLong() >>> 32) * bound;
+                low = product & 0xffffffffL;
+            }
+        }
+        return (int) (product >>> 32);
+    }
+
+    /**
+     * Returns random integer between {@code min} and {@code max}
+     * @param min Lower bound (including {@code min} itself)
+     * @param max Upper bound (including {@code max} itself)
+     * @return Random integer between {@code min} and {@code max}
+     */
+    public int nextInt(int min, int max) {
+        return min + nextInt(max - min + 1);
+    }
+
+    /**
+     * Returns random move
+     *
+     * @return Random move
+     */
+    public int nextMove() {
+        return 1 + nextInt(3);
+    }
+
+    /**
+     * Returns random move, excluding {@code m}
+     *
+     * @param m Move to exclude
+     * @return Random move, excluding {@code m}
+     */
+    public int nextMoveExcluding(int m) {
+        return (nextInt(2) + m) % 3 + 1;
+    }
+
+    /**
+     * Returns random field out of {@code fields}. For three fields, it is the same as {@link Random#nextMove()}
+     *
+     * @param fields Amount of fields
+     * @return Random field from {@code 1} to {@code fields}
+     */
+    public int nextField(int fields) {
+        return 1 + nextInt(fields);
+    }
+
+    /**
+     * Returns random field out of {@code fields}, excluding {@code m}.
+     * For three fields, it is the same as {@link Random#nextMoveExcluding(int)}
+     *
+     * @param m Field to exclude
+     * @param fields Amount of fields, at least two
+     * @return Random field from {@code 1} to {@code fields}, excluding {@code m}
+     */
+    public int nextFieldExcluding(int m, int fields) {
+        return (nextInt(fields - 1) + m) % fields + 1;
+    }
+
+    /**
+     * @return Current state of the generator, which together with {@link Random#getGamma()} defines all next values
+     */
+    long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return Step of the generator
+     */
+    long getGamma() {
+        return gamma;
+    }
+
+    /**
+     * Creates generator in the state, which was returned by {@link Random#getSeed()} and {@link Random#getGamma()},
+     * for example in another process
+     *
+     * @param seed Current state of the original generator
+     * @param gamma Step of the original generator
+     * @return Generator, which produces the same values as the original one
+     */
+    static Random restore(long seed, long gamma) {
+        return new Random(seed, gamma);
+    }
+
+    private long nextSeed() {
+        return seed += gamma;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long mixGamma(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        z = (z ^ (z >>> 33)) | 1L;
+        int n = Long.bitCount(z ^ (z >>> 1));
+        return (n < 24) ? z ^ 0xaaaaaaaaaaaaaaaaL : z;
+    }
 
     /**
      * Returns random integer between {@code min} and {@code max}
@@ -0,0 +1,70 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Schedule, in which each player challenges a few randomly chosen opponents.
+ *
+ * Each player is the first player in {@code k} matches, and is chosen as an opponent
+ * {@code k} times on average, so it plays about {@code 2 * k} matches.
+ * Amount of matches grows linearly with the amount of players,
+ * unlike {@link RoundRobinSchedule}, where it grows quadratically.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class RandomOpponentsSchedule implements Schedule {
+
+    private final int[] players1;
+    private final int[] players2;
+
+    private RandomOpponentsSchedule(int[] players1, int[] players2) {
+        this.players1 = players1;
+        this.players2 = players2;
+    }
+
+    /**
+     * Creates schedule, where each player challenges {@code opponents} opponents, chosen uniformly among other players.
+     * The same opponent can be chosen more than once
+     *
+     * @param players Amount of players, at least two
+     * @param opponents How many opponents each player challenges
+     * @param random Random generator, which chooses the opponents
+     * @return Schedule of {@code players * opponents} matches
+     */
+    public static RandomOpponentsSchedule create(int players, int opponents, Random random) {
+        if (players < 2) {
+            throw new IllegalArgumentException("At least two players are needed, but got " + players);
+        }
+        long total = (long) players * opponents;
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many matches: " + total);
+        }
+
+        int[] players1 = new int[(int) total], players2 = new int[(int) total];
+        int k = 0;
+        for (int i = 0; i < players; i++) {
+            for (int j = 0; j < opponents; j++) {
+                // choose among players - 1 others, skipping the player itself
+                int opponent = random.nextInt(players - 1);
+                players1[k] = i;
+                players2[k] = opponent >= i ? opponent + 1 : opponent;
+                k++;
+            }
+        }
+        return new RandomOpponentsSchedule(players1, players2);
+    }
+
+    @Override
+    public int size() {
+        return players1.length;
+    }
+
+    @Override
+    public int player1(int match) {
+        return players1[match];
+    }
+
+    @Override
+    public int player2(int match) {
+        return players2[match];
+    }
+
+}
@@ -0,0 +1,237 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Evolutionary tournament, where each strategy has a share of the population,
+ * and the shares change from generation to generation according to the payoffs of strategies.
+ *
+ * The payoff of each strategy against each other strategy (including itself) is computed only once,
+ * exactly by {@link ExactSolver} where possible, or by simulating several matches of the pair
+ * with {@link BatchSimulator} and taking the average payoff per round.
+ * Then each generation is calculated from this matrix by the discrete replicator equation:
+ * <pre>
+ * fitness[i] = sum of payoff[i][j] * share[j]
+ * share'[i]  = share[i] * fitness[i] / sum of share[j] * fitness[j]
+ * </pre>
+ * so one generation costs {@code O(strategies^2)} operations, without playing any matches.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ReplicatorDynamics {
+
+    /**
+     * Prototypes of the strategies, one per strategy
+     */
+    private final List<Player> strategies;
+
+    /**
+     * Amount of strategies
+     */
+    private final int size;
+
+    /**
+     * Average payoff per round of strategy {@code i} against strategy {@code j}, at index {@code i * size + j}
+     */
+    private final double[] payoffs;
+
+    /**
+     * Current share of each strategy in the population. Shares always sum up to 1
+     */
+    private final double[] shares;
+
+    /**
+     * Fitness of each strategy in the current generation, reused between generations
+     */
+    private final double[] fitness;
+
+    /**
+     * Amount of generations since the start
+     */
+    private long generation = 0;
+
+    /**
+     * Creates the population and computes the payoff matrix for each pair of strategies
+     *
+     * @param strategies Prototypes of the strategies, one per strategy
+     * @param initialShares Initial amount of players of each strategy. They are normalized to sum up to 1
+     * @param numberOfRounds Amount of rounds in each simulated match
+     * @param samples Amount of matches, simulated for each pair of strategies, which can not be solved exactly
+     * @param payoffTable Table, which is used to calculate payoffs
+     * @param random Random generator, from which generators of all simulated matches are derived
+     * @throws IllegalArgumentException if amount of shares does not match amount of strategies,
+     *                                  or if some share is negative, or all of them are zero
+     */
+    public ReplicatorDynamics(
+            List<Player> strategies, double[] initialShares,
+            int numberOfRounds, int samples, PayoffTable payoffTable, Random random
+    ) {
+        this.strategies = new ArrayList<>(strategies);
+        this.size = strategies.size();
+        if (initialShares.length != size) {
+            throw new IllegalArgumentException("Expected " + size + " shares, but got " + initialShares.length);
+        }
+        this.payoffs = new double[size * size];
+        this.shares = initialShares.clone();
+        this.fitness = new double[size];
+
+        double total = 0;
+        for (double share : shares) {
+            if (share < 0) {
+                throw new IllegalArgumentException("Share can not be negative: " + share);
+            }
+            total += share;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one share should be positive");
+        }
+        for (int i = 0; i < size; i++) {
+            shares[i] /= total;
+        }
+
+        for (int i = 0; i < size; i++) {
+            for (int j = i; j < size; j++) {
+                evaluate(i, j, numberOfRounds, samples, payoffTable, random.split((long) i * size + j));
+            }
+        }
+    }
+
+    /**
+     * Groups the players by their class and parameters, keeping the order of the first appearance.
+     * Amount of players of each strategy becomes its initial share
+     *
+     * @param players Players of the tournament, for example {@link Tournament#createPlayers()}
+     * @param numberOfRounds Amount of rounds in each simulated match
+     * @param samples Amount of matches, simulated for each pair of strategies
+     * @param payoffTable Table, which is used to calculate payoffs
+     * @param random Random generator, from which generators of all simulated matches are derived
+     * @return New population
+     */
+    public static ReplicatorDynamics fromPlayers(
+            List<Player> players, int numberOfRounds, int samples, PayoffTable payoffTable, Random random
+    ) {
+        List<Player> strategies = new ArrayList<>();
+        List<Integer> counts = new ArrayList<>();
+        for (Player player : players) {
+            int index = 0;
+            while (index < strategies.size() && !isSameStrategy(strategies.get(index), player)) {
+                index++;
+            }
+            if (index == strategies.size()) {
+                strategies.add(player);
+                counts.add(0);
+            }
+            counts.set(index, counts.get(index) + 1);
+        }
+
+        double[] shares = new double[strategies.size()];
+        for (int i = 0; i < shares.length; i++) {
+            shares[i] = counts.get(i);
+        }
+        return new ReplicatorDynamics(strategies, shares, numberOfRounds, samples, payoffTable, random);
+    }
+
+    private static boolean isSameStrategy(Player player1, Player player2) {
+        return player1.getClass() == player2.getClass() && player1.getParameters().equals(player2.getParameters());
+    }
+
+    /**
+     * Calculates expected payoffs of strategies {@code i} and {@code j} against each other and saves them
+     */
+    private void evaluate(int i, int j, int numberOfRounds, int samples, PayoffTable payoffTable, Random random) {
+        double[] scores = ExactSolver.expectedScores(
+                strategies.get(i), strategies.get(j), numberOfRounds, payoffTable, samples, random
+        );
+
+        double score1 = scores[0] / numberOfRounds;
+        double score2 = scores[1] / numberOfRounds;
+        if (i == j) {
+            payoffs[i * size + i] = (score1 + score2) / 2;
+        } else {
+            payoffs[i * size + j] = score1;
+            payoffs[j * size + i] = score2;
+        }
+    }
+
+    /**
+     * Calculates the next generation.
+     * If the average fitness is zero, nobody gets any payoff, and the shares do not change
+     *
+     * @return this population, for convenience
+     */
+    public ReplicatorDynamics step() {
+        double average = 0;
+        for (int i = 0; i < size; i++) {
+            double sum = 0;
+            for (int j = 0; j < size; j++) {
+                sum += payoffs[i * size + j] * shares[j];
+            }
+            fitness[i] = sum;
+            average += shares[i] * sum;
+        }
+
+        if (average > 0) {
+            for (int i = 0; i < size; i++) {
+                shares[i] *= fitness[i] / average;
+            }
+        }
+        generation++;
+        return this;
+    }
+
+    /**
+     * Calculates several generations
+     *
+     * @param generations Amount of generations
+     * @return this population, for convenience
+     */
+    public ReplicatorDynamics run(long generations) {
+        for (long g = 0; g < generations; g++) {
+            step();
+        }
+        return this;
+    }
+
+    /**
+     * @return Amount of strategies
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param strategy Index of the strategy
+     * @return Prototype of the strategy
+     */
+    public Player getStrategy(int strategy) {
+        return strategies.get(strategy);
+    }
+
+    /**
+     * @param strategy Index of the strategy
+     * @param opponent Index of the opponent strategy
+     * @return Average payoff per round of the {@code strategy} against the {@code opponent}
+     */
+    public double getPayoff(int strategy, int opponent) {
+        return payoffs[strategy * size + opponent];
+    }
+
+    /**
+     * @param strategy Index of the strategy
+     * @return Current share of the strategy in the population
+     */
+    public double getShare(int strategy) {
+        return shares[strategy];
+    }
+
+    /**
+     * @return Amount of generations since the start
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+}
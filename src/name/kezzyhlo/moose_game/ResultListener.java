@@ -0,0 +1,25 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Receives the result of each match as soon as it is finished, while the rest of the tournament is still running.
+ * Unlike {@link EventSink}, it does not see the rounds, so it costs nothing per round.
+ * Matches finish in any order and on any thread, so the listener should be thread-safe.
+ *
+ * @see Leaderboard
+ * @see ParallelTournament#setResultListener(ResultListener)
+ */
+public interface ResultListener {
+
+    /**
+     * Called after the match is played, or its result is restored from the cache or the checkpoint
+     *
+     * @param match Index of the match in the {@link Schedule}
+     * @param player1 Index of the first player
+     * @param player2 Index of the second player
+     * @param score1 Total payoff of the first player in the match
+     * @param score2 Total payoff of the second player in the match
+     */
+    void matchFinished(int match, int player1, int player2, double score1, double score2);
+
+}
@@ -0,0 +1,94 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Schedule, in which each player plays with each other player.
+ *
+ * Since both players get their scores from each match, it is enough to play each unordered pair once.
+ * Playing ordered pairs, like in the original tournament, doubles the amount of matches.
+ * Each pair can also be repeated several times, to reduce the influence of randomness;
+ * in unordered schedule, players switch sides in each repeat.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class RoundRobinSchedule implements Schedule {
+
+    private final int[] players1;
+    private final int[] players2;
+
+    private RoundRobinSchedule(int[] players1, int[] players2) {
+        this.players1 = players1;
+        this.players2 = players2;
+    }
+
+    /**
+     * Creates schedule, where each unordered pair of different players plays {@code repeats} times
+     *
+     * @param players Amount of players
+     * @param repeats How many times each pair plays
+     * @return Schedule of {@code players * (players - 1) / 2 * repeats} matches
+     */
+    public static RoundRobinSchedule unorderedPairs(int players, int repeats) {
+        int size = checkSize((long) players * (players - 1) / 2 * repeats);
+        int[] players1 = new int[size], players2 = new int[size];
+        int k = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < players; i++) {
+                for (int j = i + 1; j < players; j++) {
+                    boolean swap = r % 2 == 1;
+                    players1[k] = swap ? j : i;
+                    players2[k] = swap ? i : j;
+                    k++;
+                }
+            }
+        }
+        return new RoundRobinSchedule(players1, players2);
+    }
+
+    /**
+     * Creates schedule, where each ordered pair of different players plays {@code repeats} times,
+     * so each two players meet {@code 2 * repeats} times
+     *
+     * @param players Amount of players
+     * @param repeats How many times each ordered pair plays
+     * @return Schedule of {@code players * (players - 1) * repeats} matches
+     */
+    public static RoundRobinSchedule orderedPairs(int players, int repeats) {
+        int size = checkSize((long) players * (players - 1) * repeats);
+        int[] players1 = new int[size], players2 = new int[size];
+        int k = 0;
+        for (int r = 0; r < repeats; r++) {
+            for (int i = 0; i < players; i++) {
+                for (int j = 0; j < players; j++) {
+                    if (i == j) continue;
+                    players1[k] = i;
+                    players2[k] = j;
+                    k++;
+                }
+            }
+        }
+        return new RoundRobinSchedule(players1, players2);
+    }
+
+    private static int checkSize(long size) {
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many matches: " + size);
+        }
+        return (int) size;
+    }
+
+    @Override
+    public int size() {
+        return players1.length;
+    }
+
+    @Override
+    public int player1(int match) {
+        return players1[match];
+    }
+
+    @Override
+    public int player2(int match) {
+        return players2[match];
+    }
+
+}
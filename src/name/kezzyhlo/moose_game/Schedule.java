@@ -0,0 +1,29 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * List of matches, which should be played in the tournament.
+ * Each match is defined by the indexes of its two players.
+ *
+ * @see RoundRobinSchedule
+ */
+public interface Schedule {
+
+    /**
+     * @return Amount of matches
+     */
+    int size();
+
+    /**
+     * @param match Index of the match, from {@code 0} to {@code size() - 1}
+     * @return Index of the first player of the match
+     */
+    int player1(int match);
+
+    /**
+     * @param match Index of the match, from {@code 0} to {@code size() - 1}
+     * @return Index of the second player of the match
+     */
+    int player2(int match);
+
+}
@@ -0,0 +1,104 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Results of the tournament: total score of each player against each other player,
+ * and the amount of matches they played.
+ * Both players of each match are credited with their scores.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ScoreMatrix {
+
+    /**
+     * Amount of players
+     */
+    private final int size;
+
+    /**
+     * Total score of player {@code i} in matches against player {@code j}, at index {@code i * size + j}
+     */
+    private final double[] scores;
+
+    /**
+     * Amount of matches between players {@code i} and {@code j}, at index {@code i * size + j}
+     */
+    private final int[] matches;
+
+    /**
+     * Creates empty matrix
+     *
+     * @param size Amount of players
+     */
+    public ScoreMatrix(int size) {
+        this.size = size;
+        this.scores = new double[size * size];
+        this.matches = new int[size * size];
+    }
+
+    /**
+     * Credits both players with their scores from the match
+     *
+     * @param player1 Index of the first player
+     * @param player2 Index of the second player
+     * @param score1 Total payoff of the first player in the match
+     * @param score2 Total payoff of the second player in the match
+     */
+    public void add(int player1, int player2, double score1, double score2) {
+        scores[player1 * size + player2] += score1;
+        matches[player1 * size + player2]++;
+        scores[player2 * size + player1] += score2;
+        matches[player2 * size + player1]++;
+    }
+
+    /**
+     * @return Amount of players
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param player Index of the player
+     * @param opponent Index of the opponent
+     * @return Total score of the {@code player} in all matches against the {@code opponent}
+     */
+    public double getScore(int player, int opponent) {
+        return scores[player * size + opponent];
+    }
+
+    /**
+     * @param player Index of the player
+     * @param opponent Index of the opponent
+     * @return Amount of matches between the {@code player} and the {@code opponent}
+     */
+    public int getMatches(int player, int opponent) {
+        return matches[player * size + opponent];
+    }
+
+    /**
+     * Sums up scores of the player against all opponents, in the order of opponents
+     *
+     * @param player Index of the player
+     * @return Total score of the {@code player} in all matches
+     */
+    public double getScoreSum(int player) {
+        double sum = 0;
+        for (int j = 0; j < size; j++) {
+            sum += scores[player * size + j];
+        }
+        return sum;
+    }
+
+    /**
+     * @param player Index of the player
+     * @return Amount of matches, played by the {@code player}
+     */
+    public int getMatchCount(int player) {
+        int count = 0;
+        for (int j = 0; j < size; j++) {
+            count += matches[player * size + j];
+        }
+        return count;
+    }
+
+}
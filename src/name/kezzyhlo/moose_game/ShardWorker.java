@@ -0,0 +1,180 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+import name.kezzyhlo.moose_game.players.StrategyRegistry;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Worker process of the {@link ShardedTournament}.
+ *
+ * It reads one shard from the standard input, plays its matches with {@link ParallelTournament}
+ * and writes their scores to the standard output, in the format of {@link ShardWorker#writeJob} and
+ * {@link ShardWorker#readScores}. Anything, that strategies or logs print, goes to the standard error instead,
+ * so that it does not corrupt the results.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ShardWorker {
+
+    /**
+     * Written at the start of each job, so that a worker of a different version fails instead of playing garbage
+     */
+    private static final int MAGIC = 0x4d4f4f54;
+
+    /**
+     * No instances needed for this class
+     */
+    private ShardWorker() {}
+
+    /**
+     * Plays the shard, given in the standard input
+     *
+     * @param args Not used
+     * @throws IOException if the job can not be read or the scores can not be written
+     * @throws ReflectiveOperationException if some player class can not be instantiated
+     */
+    public static void main(String[] args) throws IOException, ReflectiveOperationException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(System.out));
+        System.setOut(System.err);
+        DataInputStream in = new DataInputStream(new BufferedInputStream(System.in));
+
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Unexpected job format");
+        }
+        Random random = Random.restore(in.readLong(), in.readLong());
+        int numberOfRounds = in.readInt();
+        boolean sharedSeeds = in.readBoolean();
+        TimeBudget timeBudget = null;
+        if (in.readBoolean()) {
+            long moveNanos = in.readLong(), matchNanos = in.readLong();
+            timeBudget = new TimeBudget(moveNanos, matchNanos).setForfeit(in.readBoolean());
+        }
+        int playerCount = in.readInt();
+        List<Player> players = new ArrayList<>(playerCount);
+        for (int i = 0; i < playerCount; i++) {
+            players.add(StrategyRegistry.create(in.readUTF()));
+        }
+        int from = in.readInt(), to = in.readInt();
+        int[] players1 = new int[to - from], players2 = new int[to - from];
+        for (int k = 0; k < players1.length; k++) {
+            players1[k] = in.readInt();
+            players2[k] = in.readInt();
+        }
+
+        double[][] scores = new ParallelTournament(players, numberOfRounds, Tournament.PAYOFF_TABLE, random)
+                .setEvents(null)
+                .setSharedSeeds(sharedSeeds)
+                .setTimeBudget(timeBudget)
+                .setSchedule(new ShardSchedule(from, players1, players2))
+                .playMatches(from, to);
+        for (int k = 0; k < players1.length; k++) {
+            out.writeDouble(scores[0][k]);
+            out.writeDouble(scores[1][k]);
+        }
+        out.flush();
+        if (timeBudget != null) {
+            timeBudget.printSummary(Log.LogLevel.LOG_INFO);
+        }
+    }
+
+    /**
+     * Writes the job of one worker
+     *
+     * @param out Standard input of the worker
+     * @param players Prototypes of all players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param random Master random generator of the tournament
+     * @param sharedSeeds Whether matches between the same strategies get the same generator
+     * @param timeBudget Time budget of the players, or {@code null} if they are not limited
+     * @param schedule The whole schedule
+     * @param from Index of the first match of the shard
+     * @param to Index after the last match of the shard
+     * @throws IOException if the job can not be written
+     */
+    static void writeJob(
+            DataOutputStream out, List<Player> players, int numberOfRounds, Random random, boolean sharedSeeds,
+            TimeBudget timeBudget, Schedule schedule, int from, int to
+    ) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeLong(random.getSeed());
+        out.writeLong(random.getGamma());
+        out.writeInt(numberOfRounds);
+        out.writeBoolean(sharedSeeds);
+        out.writeBoolean(timeBudget != null);
+        if (timeBudget != null) {
+            out.writeLong(timeBudget.getMoveNanos());
+            out.writeLong(timeBudget.getMatchNanos());
+            out.writeBoolean(timeBudget.isForfeit());
+        }
+        out.writeInt(players.size());
+        for (Player player : players) {
+            out.writeUTF(player.getClass().getName());
+        }
+        out.writeInt(from);
+        out.writeInt(to);
+        for (int k = from; k < to; k++) {
+            out.writeInt(schedule.player1(k));
+            out.writeInt(schedule.player2(k));
+        }
+        out.flush();
+    }
+
+    /**
+     * Reads scores of the shard, written by the worker
+     *
+     * @param in Standard output of the worker
+     * @param scores1 Array, to which payoffs of the first players are saved at indexes of the whole schedule
+     * @param scores2 Array, to which payoffs of the second players are saved
+     * @param from Index of the first match of the shard
+     * @param to Index after the last match of the shard
+     * @throws IOException if the worker did not write all scores
+     */
+    static void readScores(DataInputStream in, double[] scores1, double[] scores2, int from, int to)
+            throws IOException {
+        for (int k = from; k < to; k++) {
+            scores1[k] = in.readDouble();
+            scores2[k] = in.readDouble();
+        }
+    }
+
+    /**
+     * Part of the schedule from {@code from} to {@code from + players1.length}.
+     * Indexes before {@code from} are never played
+     */
+    private static final class ShardSchedule implements Schedule {
+
+        private final int from;
+        private final int[] players1;
+        private final int[] players2;
+
+        private ShardSchedule(int from, int[] players1, int[] players2) {
+            this.from = from;
+            this.players1 = players1;
+            this.players2 = players2;
+        }
+
+        @Override
+        public int size() {
+            return from + players1.length;
+        }
+
+        @Override
+        public int player1(int match) {
+            return players1[match - from];
+        }
+
+        @Override
+        public int player2(int match) {
+            return players2[match - from];
+        }
+
+    }
+
+}
@@ -0,0 +1,255 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+
+/**
+ * Tournament, which splits the {@link Schedule} into contiguous shards and plays each of them
+ * in a separate {@link ShardWorker} process, started with the same Java and class path as this one.
+ *
+ * The job of each worker is written to its standard input, and the scores are read from its standard output,
+ * so nothing but the pipes is needed. Workers derive random generators of matches from the same master generator
+ * and the index of the match in the whole schedule, so the results are exactly the same
+ * as of {@link ParallelTournament} with the same arguments, regardless of the amount of shards.
+ *
+ * Besides using more memory and processors, than one JVM can, workers isolate strategies:
+ * static state, which a strategy shares between its instances, is shared only within one shard.
+ * The {@link TimeBudget} is passed to the workers by its settings, and each worker counts and prints
+ * its own overruns to its standard error.
+ * Workers use {@link Tournament#PAYOFF_TABLE}, since a function can not be passed to another process,
+ * and players are created by the default constructors of their classes,
+ * so players with {@link Player#getParameters() parameters} are rejected.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ShardedTournament {
+
+    /**
+     * Prototypes of the players
+     */
+    private final List<Player> players;
+
+    /**
+     * Amount of rounds in each match
+     */
+    private final int numberOfRounds;
+
+    /**
+     * Master random generator, whose state is passed to all workers
+     */
+    private final Random random;
+
+    /**
+     * Matches, which should be played, or {@code null} for the default round robin
+     */
+    private Schedule schedule = null;
+
+    /**
+     * Amount of worker processes
+     */
+    private int shards = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether all matches between the same classes get the same random generator
+     */
+    private boolean sharedSeeds = false;
+
+    /**
+     * Time budget of the players in the workers, or {@code null} if players are not limited
+     */
+    private TimeBudget timeBudget = null;
+
+    /**
+     * Additional options of the worker JVMs
+     */
+    private List<String> jvmOptions = Collections.emptyList();
+
+    /**
+     * Creates the tournament, but does not play it
+     *
+     * @param players Prototypes of the players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param random Master random generator
+     */
+    public ShardedTournament(List<Player> players, int numberOfRounds, Random random) {
+        this.players = players;
+        this.numberOfRounds = numberOfRounds;
+        this.random = random;
+    }
+
+    /**
+     * Sets the matches, which should be played.
+     * By default, it is {@link RoundRobinSchedule#unorderedPairs(int, int)} with one repeat
+     *
+     * @param schedule Matches, where players are referred to by their indexes in the list of players
+     * @return this tournament, for convenience
+     */
+    public ShardedTournament setSchedule(Schedule schedule) {
+        this.schedule = schedule;
+        return this;
+    }
+
+    /**
+     * Sets the amount of worker processes. By default, there is one per processor
+     *
+     * @param shards Amount of workers. Each of them gets approximately the same amount of matches
+     * @return this tournament, for convenience
+     */
+    public ShardedTournament setShards(int shards) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("There should be at least one shard, got " + shards);
+        }
+        this.shards = shards;
+        return this;
+    }
+
+    /**
+     * @param sharedSeeds {@code true} if matches between the same strategies should get the same generator
+     * @return this tournament, for convenience
+     * @see ParallelTournament#setSharedSeeds(boolean)
+     */
+    public ShardedTournament setSharedSeeds(boolean sharedSeeds) {
+        this.sharedSeeds = sharedSeeds;
+        return this;
+    }
+
+    /**
+     * @param timeBudget Limits of the time of players, which each worker applies to its matches,
+     *                   or {@code null} if players are not limited
+     * @return this tournament, for convenience
+     * @see ParallelTournament#setTimeBudget(TimeBudget)
+     */
+    public ShardedTournament setTimeBudget(TimeBudget timeBudget) {
+        this.timeBudget = timeBudget;
+        return this;
+    }
+
+    /**
+     * Sets additional options of the worker JVMs, for example {@code -Xmx4g}
+     *
+     * @param jvmOptions Options, which are put before the main class
+     * @return this tournament, for convenience
+     */
+    public ShardedTournament setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = new ArrayList<>(jvmOptions);
+        return this;
+    }
+
+    /**
+     * Plays all matches of the schedule in the worker processes
+     *
+     * @return Scores of all players against each other, the same as {@link ParallelTournament#play()} would return
+     * @throws IOException if some worker could not be started or failed
+     * @throws IllegalArgumentException if some player has parameters, which the workers would lose
+     */
+    public ScoreMatrix play() throws IOException {
+        Schedule schedule = schedule();
+        double[][] scores = playMatches();
+        ScoreMatrix result = new ScoreMatrix(players.size());
+        for (int k = 0; k < schedule.size(); k++) {
+            result.add(schedule.player1(k), schedule.player2(k), scores[0][k], scores[1][k]);
+        }
+        return result;
+    }
+
+    /**
+     * Plays all matches of the schedule in the worker processes
+     *
+     * @return Two arrays of payoffs, of the first and of the second players, indexed by the match in the schedule
+     * @throws IOException if some worker could not be started or failed
+     * @throws IllegalArgumentException if some player has parameters, which the workers would lose
+     */
+    public double[][] playMatches() throws IOException {
+        for (Player player : players) {
+            if (!player.getParameters().isEmpty()) {
+                throw new IllegalArgumentException(String.format(
+                        "Workers create players with the default parameters, so %s(%s) can not be played in shards",
+                        player.getClass().getName(), player.getParameters()
+                ));
+            }
+        }
+        Schedule schedule = schedule();
+        int size = schedule.size();
+        int count = Math.max(1, Math.min(shards, size));
+        double[] scores1 = new double[size], scores2 = new double[size];
+
+        Process[] workers = new Process[count];
+        try {
+            // start all workers first, so that their JVMs start up concurrently
+            for (int s = 0; s < count; s++) {
+                workers[s] = startWorker();
+            }
+            for (int s = 0; s < count; s++) {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(workers[s].getOutputStream()))) {
+                    ShardWorker.writeJob(
+                            out, players, numberOfRounds, random, sharedSeeds, timeBudget,
+                            schedule, from(s, count), from(s + 1, count)
+                    );
+                } catch (IOException e) {
+                    throw new IOException(String.format("Shard %d of %d could not receive its job", s, count), e);
+                }
+            }
+            for (int s = 0; s < count; s++) {
+                try (DataInputStream in = new DataInputStream(new BufferedInputStream(workers[s].getInputStream()))) {
+                    ShardWorker.readScores(in, scores1, scores2, from(s, count), from(s + 1, count));
+                } catch (IOException e) {
+                    throw new IOException(String.format("Shard %d of %d failed", s, count), e);
+                }
+                int exitCode = waitFor(workers[s]);
+                if (exitCode != 0) {
+                    throw new IOException(String.format("Shard %d of %d failed with exit code %d", s, count, exitCode));
+                }
+            }
+        } finally {
+            for (Process worker : workers) {
+                if (worker != null) {
+                    worker.destroyForcibly();
+                }
+            }
+        }
+        return new double[][] {scores1, scores2};
+    }
+
+    /**
+     * @return Index of the first match of the shard
+     */
+    private int from(int shard, int count) {
+        return (int) ((long) schedule().size() * shard / count);
+    }
+
+    private Process startWorker() throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(ShardWorker.class.getName());
+        return new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+    }
+
+    private static int waitFor(Process worker) throws IOException {
+        try {
+            return worker.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a worker", e);
+        }
+    }
+
+    private Schedule schedule() {
+        if (schedule == null) {
+            schedule = RoundRobinSchedule.unorderedPairs(players.size(), 1);
+        }
+        return schedule;
+    }
+
+}
@@ -0,0 +1,185 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Standings of a tournament, where players meet only a sample of their possible opponents.
+ *
+ * Unlike {@link ScoreMatrix}, which needs memory for each pair of players,
+ * this class keeps only a few numbers per player in primitive arrays:
+ * amount of matches, mean payoff per round and the sum of squared deviations from it,
+ * which are updated by Welford's algorithm. This allows to estimate the standard error of each mean,
+ * and to tell whether the difference between two players is real or just a result of sampling.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class Standings {
+
+    /**
+     * Quantile of the normal distribution, so that 95% of values are within this amount of standard errors
+     */
+    private static final double Z_95 = 1.96;
+
+    /**
+     * Amount of matches, played by each player
+     */
+    private final int[] matches;
+
+    /**
+     * Mean payoff per round of each player
+     */
+    private final double[] means;
+
+    /**
+     * Sum of squared deviations of payoffs from the mean, for each player
+     */
+    private final double[] deviations;
+
+    /**
+     * Creates empty standings
+     *
+     * @param size Amount of players
+     */
+    public Standings(int size) {
+        this.matches = new int[size];
+        this.means = new double[size];
+        this.deviations = new double[size];
+    }
+
+    /**
+     * Adds the result of one match of the player
+     *
+     * @param player Index of the player
+     * @param payoff Average payoff per round of the player in the match
+     */
+    public void add(int player, double payoff) {
+        int count = ++matches[player];
+        double delta = payoff - means[player];
+        means[player] += delta / count;
+        deviations[player] += delta * (payoff - means[player]);
+    }
+
+    /**
+     * Replaces all results of the player, for example with the ones, accumulated elsewhere
+     *
+     * @param player Index of the player
+     * @param count Amount of matches
+     * @param mean Mean payoff per round
+     * @param deviation Sum of squared deviations of payoffs from the mean
+     */
+    void set(int player, int count, double mean, double deviation) {
+        matches[player] = count;
+        means[player] = mean;
+        deviations[player] = deviation;
+    }
+
+    /**
+     * @return Amount of players
+     */
+    public int size() {
+        return matches.length;
+    }
+
+    /**
+     * @param player Index of the player
+     * @return Amount of matches, played by the player
+     */
+    public int getMatchCount(int player) {
+        return matches[player];
+    }
+
+    /**
+     * @param player Index of the player
+     * @return Mean payoff per round of the player, or {@code 0} if it has not played yet
+     */
+    public double getMean(int player) {
+        return means[player];
+    }
+
+    /**
+     * Estimates how far the {@link Standings#getMean(int) mean} can be from the real expected payoff of the player.
+     * Approximately 95% of the time the real value is within two standard errors from the mean
+     *
+     * @param player Index of the player
+     * @return Standard error of the mean, or {@link Double#POSITIVE_INFINITY} if the player has less than two matches
+     */
+    public double getStandardError(int player) {
+        int count = matches[player];
+        if (count < 2) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return Math.sqrt(deviations[player] / (count - 1) / count);
+    }
+
+    /**
+     * Returns the half-width of the 95% confidence interval of the {@link Standings#getMean(int) mean}
+     *
+     * @param player Index of the player
+     * @return The real expected payoff is within this distance from the mean with 95% confidence,
+     *         or {@link Double#POSITIVE_INFINITY} if the player has less than two matches
+     */
+    public double getConfidenceInterval(int player) {
+        return Z_95 * getStandardError(player);
+    }
+
+    /**
+     * @return Total amount of results, added to the standings. Each match adds two results
+     */
+    public long getTotalResults() {
+        long total = 0;
+        for (int count : matches) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Sorts players by their mean payoff, from the best to the worst.
+     * Players with equal means keep the order of their indexes
+     *
+     * @return Indexes of the players
+     */
+    public int[] ranking() {
+        int[] order = new int[size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        return ranking(order);
+    }
+
+    /**
+     * Sorts the given players by their mean payoff, from the best to the worst.
+     * Players with equal means keep their order in the array, so it can be shuffled beforehand to break ties randomly
+     *
+     * @param players Indexes of the players. The array is sorted in place
+     * @return The same array
+     */
+    public int[] ranking(int[] players) {
+        mergeSort(players, new int[players.length], 0, players.length);
+        return players;
+    }
+
+    /**
+     * Stable sort of player indexes by descending mean, without boxing them
+     */
+    private void mergeSort(int[] players, int[] buffer, int from, int to) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(players, buffer, from, middle);
+        mergeSort(players, buffer, middle, to);
+        if (means[players[middle - 1]] >= means[players[middle]]) {
+            return;
+        }
+
+        System.arraycopy(players, from, buffer, from, to - from);
+        int left = from, right = middle;
+        for (int k = from; k < to; k++) {
+            if (right >= to || left < middle && means[buffer[left]] >= means[buffer[right]]) {
+                players[k] = buffer[left++];
+            } else {
+                players[k] = buffer[right++];
+            }
+        }
+    }
+
+}
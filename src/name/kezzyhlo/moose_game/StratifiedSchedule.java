@@ -0,0 +1,139 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.ArrayList;
+import java.util.List;
+
+
+/**
+ * Schedule, in which each pair of strategies plays the same amount of matches between randomly chosen members.
+ *
+ * When there are many copies of a few strategies, the result of a player depends mostly on its strategy
+ * and on the strategies of its opponents. This schedule samples each pair of strategies (including a strategy
+ * against itself) equally, so even rare strategies get enough matches against each other,
+ * while the amount of matches depends only on the amount of strategies, not on the amount of players.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class StratifiedSchedule implements Schedule {
+
+    private final int[] players1;
+    private final int[] players2;
+
+    private StratifiedSchedule(int[] players1, int[] players2) {
+        this.players1 = players1;
+        this.players2 = players2;
+    }
+
+    /**
+     * Creates schedule, where each unordered pair of strategies plays {@code samples} matches.
+     * Members of the pair are chosen uniformly among players of each strategy, and switch sides in each sample.
+     * A strategy with only one player does not play against itself
+     *
+     * @param strategies Index of the strategy of each player
+     * @param samples Amount of matches for each pair of strategies
+     * @param random Random generator, which chooses the players
+     * @return New schedule
+     */
+    public static StratifiedSchedule create(int[] strategies, int samples, Random random) {
+        int amount = 0;
+        for (int strategy : strategies) {
+            amount = Math.max(amount, strategy + 1);
+        }
+        int[] counts = new int[amount];
+        for (int strategy : strategies) {
+            counts[strategy]++;
+        }
+
+        // players of each strategy, one after another
+        int[] starts = new int[amount + 1];
+        for (int s = 0; s < amount; s++) {
+            starts[s + 1] = starts[s] + counts[s];
+        }
+        int[] members = new int[strategies.length];
+        int[] filled = starts.clone();
+        for (int i = 0; i < strategies.length; i++) {
+            members[filled[strategies[i]]++] = i;
+        }
+
+        List<int[]> pairs = new ArrayList<>();
+        for (int a = 0; a < amount; a++) {
+            for (int b = a; b < amount; b++) {
+                if (counts[a] == 0 || counts[b] == 0 || a == b && counts[a] < 2) continue;
+                pairs.add(new int[] {a, b});
+            }
+        }
+        long total = (long) pairs.size() * samples;
+        if (total > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Too many matches: " + total);
+        }
+
+        int[] players1 = new int[(int) total], players2 = new int[(int) total];
+        int k = 0;
+        for (int[] pair : pairs) {
+            int a = pair[0], b = pair[1];
+            for (int r = 0; r < samples; r++) {
+                int index1 = random.nextInt(counts[a]);
+                int index2;
+                if (a == b) {
+                    // choose among other members, skipping the first player
+                    index2 = random.nextInt(counts[a] - 1);
+                    if (index2 >= index1) index2++;
+                } else {
+                    index2 = random.nextInt(counts[b]);
+                }
+                int player1 = members[starts[a] + index1];
+                int player2 = members[starts[b] + index2];
+                boolean swap = r % 2 == 1;
+                players1[k] = swap ? player2 : player1;
+                players2[k] = swap ? player1 : player2;
+                k++;
+            }
+        }
+        return new StratifiedSchedule(players1, players2);
+    }
+
+    /**
+     * Creates schedule for the players, considering players of the same class with the same
+     * {@link Player#getParameters() parameters} to have the same strategy
+     *
+     * @param players All players of the tournament
+     * @param samples Amount of matches for each pair of strategies
+     * @param random Random generator, which chooses the players
+     * @return New schedule
+     * @see StratifiedSchedule#create(int[], int, Random)
+     */
+    public static StratifiedSchedule forPlayers(List<Player> players, int samples, Random random) {
+        List<Player> known = new ArrayList<>();
+        int[] strategies = new int[players.size()];
+        for (int i = 0; i < strategies.length; i++) {
+            Player player = players.get(i);
+            int s = 0;
+            while (s < known.size() && (known.get(s).getClass() != player.getClass()
+                    || !known.get(s).getParameters().equals(player.getParameters()))) {
+                s++;
+            }
+            if (s == known.size()) {
+                known.add(player);
+            }
+            strategies[i] = s;
+        }
+        return create(strategies, samples, random);
+    }
+
+    @Override
+    public int size() {
+        return players1.length;
+    }
+
+    @Override
+    public int player1(int match) {
+        return players1[match];
+    }
+
+    @Override
+    public int player2(int match) {
+        return players2[match];
+    }
+
+}
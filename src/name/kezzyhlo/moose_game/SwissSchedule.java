@@ -0,0 +1,94 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.List;
+
+
+/**
+ * Swiss-style tournament: in each round, players are sorted by their current results,
+ * and neighbours in this order play against each other.
+ *
+ * Each round has only {@code players / 2} matches, and after a few rounds strong players
+ * mostly meet strong ones, which separates the top of the leaderboard much faster than random opponents.
+ * Rematches are not prevented: in big populations they are rare anyway.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class SwissSchedule implements Schedule {
+
+    private final int[] players1;
+    private final int[] players2;
+
+    private SwissSchedule(int[] players1, int[] players2) {
+        this.players1 = players1;
+        this.players2 = players2;
+    }
+
+    /**
+     * Pairs players for the next round. Players are shuffled first and then sorted by their mean payoff,
+     * so players with equal results (for example, in the first round) are paired randomly.
+     * If the amount of players is odd, the last one in the order skips the round
+     *
+     * @param standings Current results of all players
+     * @param random Random generator, which breaks the ties
+     * @return Schedule of {@code players / 2} matches
+     */
+    public static SwissSchedule round(Standings standings, Random random) {
+        int[] order = new int[standings.size()];
+        for (int i = 0; i < order.length; i++) {
+            int j = random.nextInt(i + 1);
+            order[i] = order[j];
+            order[j] = i;
+        }
+        standings.ranking(order);
+
+        int size = order.length / 2;
+        int[] players1 = new int[size], players2 = new int[size];
+        for (int k = 0; k < size; k++) {
+            players1[k] = order[2 * k];
+            players2[k] = order[2 * k + 1];
+        }
+        return new SwissSchedule(players1, players2);
+    }
+
+    /**
+     * Plays the whole Swiss tournament. Each round is played by its own {@link ParallelTournament}
+     * with a generator derived from the number of the round, without events
+     *
+     * @param players Prototypes of the players
+     * @param numberOfRounds Amount of rounds in each match
+     * @param payoffs Table, which is used to calculate payoffs
+     * @param random Master random generator
+     * @param swissRounds Amount of Swiss rounds, in each of which every player plays one match
+     * @return Results of all players
+     */
+    public static Standings play(
+            List<Player> players, int numberOfRounds, PayoffTable payoffs, Random random, int swissRounds
+    ) {
+        Standings standings = new Standings(players.size());
+        Random pairing = random.split(0);
+        for (int r = 1; r <= swissRounds; r++) {
+            new ParallelTournament(players, numberOfRounds, payoffs, random.split(r))
+                    .setEvents(null)
+                    .setSchedule(round(standings, pairing))
+                    .play(standings);
+        }
+        return standings;
+    }
+
+    @Override
+    public int size() {
+        return players1.length;
+    }
+
+    @Override
+    public int player1(int match) {
+        return players1[match];
+    }
+
+    @Override
+    public int player2(int match) {
+        return players2[match];
+    }
+
+}
@@ -0,0 +1,457 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.GameState;
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Limits the time, which strategies may spend on their moves, so that one slow or hanging strategy
+ * can not stall the whole tournament.
+ *
+ * When a {@link Match} has the budget, {@link Player#reset(Random)} and each move of both players
+ * are called on separate daemon threads, while the thread of the match waits for them not longer
+ * than the budget allows. A strategy, which does not answer in time, gets {@link TimeBudget#FALLBACK_MOVE}
+ * for this round. Its late call is interrupted and left running, and until it returns the strategy is not called again,
+ * so it is never used by two threads at once. When the strategy spends its whole budget of the match,
+ * it is not called any more in this match. With {@link TimeBudget#setForfeit(boolean) forfeits} enabled,
+ * the first overrun ends the match for the strategy instead, and it gets zero payoff for the whole match.
+ *
+ * Java can not stop a thread, so a strategy, which spins forever, keeps one processor busy until the program exits.
+ * On machines with few processors it slows down other strategies too, so the budget should be generous
+ * compared to the usual time of a move, to avoid blaming innocent strategies.
+ * Players are new in each match, so a hanging strategy would strand one more thread in every match it plays.
+ * That is why a strategy class, whose late call is still running when its match ends, is quarantined:
+ * in all its later matches it is not called at all, and is treated as if it never answered in time.
+ *
+ * Overruns are counted for each strategy class and printed by {@link TimeBudget#printSummary(Log.LogLevel)}.
+ * Handing moves over to other threads costs several microseconds per move, so the budget is meant
+ * for tournaments with untrusted strategies, and is disabled by default.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TimeBudget {
+
+    /**
+     * The move, which is made instead of a strategy, which did not answer in time.
+     * It does not choose any field, so the strategy gets zero payoff in this round
+     */
+    public static final int FALLBACK_MOVE = 0;
+
+    /**
+     * Maximal time of one move or reset in nanoseconds
+     */
+    private final long moveNanos;
+
+    /**
+     * Maximal total time of all moves and the reset of one player in one match, in nanoseconds
+     */
+    private final long matchNanos;
+
+    /**
+     * Threads, on which the strategies are called
+     */
+    private final ExecutorService executor;
+
+    /**
+     * Overruns of each strategy class
+     */
+    private final Map<Class<? extends Player>, Overruns> overruns = new ConcurrentHashMap<>();
+
+    /**
+     * Guards, whose late calls were still running, when their matches ended
+     */
+    private final Set<Guard> stranded = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Whether the strategy forfeits the whole match after the first overrun
+     */
+    private boolean forfeit = false;
+
+    /**
+     * Creates the budget. Non-positive values mean, that there is no such limit
+     *
+     * @param moveNanos Maximal time of one move or reset in nanoseconds
+     * @param matchNanos Maximal total time of all moves and the reset of one player in one match, in nanoseconds
+     */
+    public TimeBudget(long moveNanos, long matchNanos) {
+        this.moveNanos = moveNanos > 0 ? moveNanos : Long.MAX_VALUE;
+        this.matchNanos = matchNanos > 0 ? matchNanos : Long.MAX_VALUE;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newCachedThreadPool(task -> {
+            Thread thread = new Thread(task, "moose-game-move-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Sets what happens after an overrun. By default, only the late move is replaced by {@link TimeBudget#FALLBACK_MOVE}
+     *
+     * @param forfeit {@code true} if the strategy should lose the whole match after the first overrun
+     * @return this budget, for convenience
+     */
+    public TimeBudget setForfeit(boolean forfeit) {
+        this.forfeit = forfeit;
+        return this;
+    }
+
+    /**
+     * @return Maximal time of one move or reset in nanoseconds, {@link Long#MAX_VALUE} if it is not limited
+     */
+    long getMoveNanos() {
+        return moveNanos;
+    }
+
+    /**
+     * @return Maximal total time of one player in one match in nanoseconds, {@link Long#MAX_VALUE} if it is not limited
+     */
+    long getMatchNanos() {
+        return matchNanos;
+    }
+
+    /**
+     * @return {@code true} if the strategy loses the whole match after the first overrun
+     */
+    boolean isForfeit() {
+        return forfeit;
+    }
+
+    /**
+     * Creates the guard of one player in one match
+     *
+     * @param player The player
+     * @return The guard, which should be used only by the thread playing the match
+     */
+    Guard guard(Player player) {
+        return new Guard(player);
+    }
+
+    /**
+     * @param strategy Class of the strategy
+     * @return Overruns of the strategy, or {@code null} if it has never exceeded the budget
+     */
+    public Overruns getOverruns(Class<? extends Player> strategy) {
+        return overruns.get(strategy);
+    }
+
+    /**
+     * @return Amount of threads, which are still busy with the late calls of finished matches
+     */
+    public int getStrandedThreads() {
+        return stranded.size();
+    }
+
+    /**
+     * Prints the strategies, which exceeded the budget, starting from the ones with the most late calls
+     *
+     * @param level Level of the messages
+     */
+    public void printSummary(Log.LogLevel level) {
+        if (!Log.isEnabled(level)) {
+            return;
+        }
+        if (overruns.isEmpty()) {
+            Log.log(level, "No strategy exceeded the time budget\n\n");
+            return;
+        }
+        Log.log(level, "%30s %12s %12s %10s %12s\n", "Strategy", "Late calls", "Out of time", "Forfeits", "Quarantined");
+        List<Overruns> sorted = new ArrayList<>(overruns.values());
+        sorted.sort(Comparator.comparingLong(Overruns::getLateCalls).reversed());
+        for (Overruns strategy : sorted) {
+            Log.log(
+                    level, "%30s %12d %12d %10d %12d\n",
+                    strategy.getName(), strategy.getLateCalls(), strategy.getExhaustedMatches(), strategy.getForfeits(),
+                    strategy.getQuarantinedMatches()
+            );
+        }
+        Log.log(level, "Threads stranded by late calls: %d\n\n", getStrandedThreads());
+    }
+
+    /**
+     * Overruns of one strategy class in all matches
+     */
+    public static final class Overruns {
+
+        private final Class<? extends Player> strategy;
+        private final LongAdder lateCalls = new LongAdder();
+        private final LongAdder exhaustedMatches = new LongAdder();
+        private final LongAdder forfeits = new LongAdder();
+        private final LongAdder quarantinedMatches = new LongAdder();
+
+        /**
+         * Whether the strategy hung past the end of a match, and is not called anymore
+         */
+        private volatile boolean quarantined = false;
+
+        private Overruns(Class<? extends Player> strategy) {
+            this.strategy = strategy;
+        }
+
+        /**
+         * @return Simple name of the strategy class
+         */
+        public String getName() {
+            return strategy.getSimpleName();
+        }
+
+        /**
+         * @return Amount of moves and resets, which did not finish within the budget
+         */
+        public long getLateCalls() {
+            return lateCalls.sum();
+        }
+
+        /**
+         * @return Amount of matches, in which the strategy spent its whole budget of the match
+         */
+        public long getExhaustedMatches() {
+            return exhaustedMatches.sum();
+        }
+
+        /**
+         * @return Amount of matches, which the strategy forfeited
+         */
+        public long getForfeits() {
+            return forfeits.sum();
+        }
+
+        /**
+         * @return {@code true} if the strategy is not called anymore, since its late call outlived its match
+         */
+        public boolean isQuarantined() {
+            return quarantined;
+        }
+
+        /**
+         * @return Amount of matches, in which the strategy was not called, since it was quarantined
+         */
+        public long getQuarantinedMatches() {
+            return quarantinedMatches.sum();
+        }
+
+    }
+
+    /**
+     * Calls one player on the threads of the budget and tracks its time in one match.
+     * Calls are split into {@code start} and {@code finish}, so that both players of a round think concurrently
+     */
+    final class Guard implements Callable<Integer> {
+
+        private final Player player;
+
+        /**
+         * Whether the last call of the player has not returned yet. It is the only field, written by the called thread
+         */
+        private volatile boolean busy = false;
+
+        /**
+         * State, given to the next move, or {@code null} if the next call is the reset
+         */
+        private GameState state = null;
+
+        /**
+         * Random generator, given to the reset
+         */
+        private Random resetRandom = null;
+
+        private Future<Integer> pending = null;
+        private long startNanos = 0;
+        private long lastNanos = 0;
+        private long usedNanos = 0;
+        private boolean stopped = false;
+        private boolean overrun = false;
+        private boolean forfeited = false;
+
+        private Guard(Player player) {
+            this.player = player;
+            Overruns strategy = overruns.get(player.getClass());
+            if (strategy != null && strategy.quarantined) {
+                strategy.quarantinedMatches.increment();
+                overrun = true;
+                forfeited = forfeit;
+                stopped = true;
+            }
+        }
+
+        @Override
+        public Integer call() {
+            try {
+                if (state == null) {
+                    player.reset(resetRandom);
+                    return FALLBACK_MOVE;
+                }
+                return player.move(state);
+            } finally {
+                busy = false;
+                stranded.remove(this);
+            }
+        }
+
+        /**
+         * Starts {@link Player#reset(Random)} of the player
+         *
+         * @param random Random generator of the player in this match
+         */
+        void startReset(Random random) {
+            state = null;
+            resetRandom = random;
+            start();
+        }
+
+        /**
+         * Waits for the reset of the player
+         */
+        void finishReset() {
+            finish(-1);
+        }
+
+        /**
+         * Starts the move of the player, unless it is out of time or still busy with a late call
+         *
+         * @param state State of the match, as seen by the player
+         */
+        void startMove(GameState state) {
+            this.state = state;
+            start();
+        }
+
+        /**
+         * Waits for the move of the player, started by {@link Guard#startMove(GameState)}
+         *
+         * @param round Number of the round, for the reports
+         * @return The move of the player, or {@link TimeBudget#FALLBACK_MOVE} if it did not answer in time
+         */
+        int finishMove(int round) {
+            return finish(round);
+        }
+
+        /**
+         * Calls {@link Player#matchFinished()} on this thread, without limits.
+         * A player, which is still busy with a late call, is not called, since it is not thread-safe,
+         * and its strategy is quarantined instead
+         */
+        void finishMatch() {
+            if (!busy) {
+                player.matchFinished();
+                return;
+            }
+            stranded.add(this);
+            if (!busy) {
+                // the call has returned in the meantime, maybe before the guard was added
+                stranded.remove(this);
+                return;
+            }
+            Overruns strategy = overruns.computeIfAbsent(player.getClass(), Overruns::new);
+            if (!strategy.quarantined) {
+                strategy.quarantined = true;
+                Log.log(
+                        Log.LogLevel.LOG_ONLY_ERRORS,
+                        "%s is still running after the end of its match, so its strategy is not called anymore\n",
+                        player
+                );
+            }
+        }
+
+        private void start() {
+            pending = null;
+            lastNanos = 0;
+            if (stopped || busy) {
+                return;
+            }
+            busy = true;
+            startNanos = System.nanoTime();
+            pending = executor.submit(this);
+        }
+
+        private int finish(int round) {
+            if (pending == null) {
+                return FALLBACK_MOVE;
+            }
+            long limit = Math.min(moveNanos, matchNanos - usedNanos);
+            try {
+                int move = pending.get(Math.max(0, limit - (System.nanoTime() - startNanos)), TimeUnit.NANOSECONDS);
+                spend();
+                return move;
+            } catch (TimeoutException e) {
+                pending.cancel(true);
+                spend();
+                late(round);
+                return FALLBACK_MOVE;
+            } catch (InterruptedException e) {
+                pending.cancel(true);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + player, e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                if (cause instanceof Error) throw (Error) cause;
+                throw new IllegalStateException(player + " failed", cause);
+            } finally {
+                pending = null;
+            }
+        }
+
+        private void spend() {
+            lastNanos = System.nanoTime() - startNanos;
+            usedNanos += lastNanos;
+        }
+
+        private void late(int round) {
+            Overruns strategy = overruns.computeIfAbsent(player.getClass(), Overruns::new);
+            strategy.lateCalls.increment();
+            overrun = true;
+            if (forfeit) {
+                strategy.forfeits.increment();
+                forfeited = true;
+                stopped = true;
+            } else if (usedNanos >= matchNanos) {
+                strategy.exhaustedMatches.increment();
+                stopped = true;
+            }
+            Log.log(
+                    Log.LogLevel.LOG_DETAILED_PAYOFFS,
+                    "%s did not answer in %.3f ms %s%s\n",
+                    player, lastNanos / 1e6, round < 0 ? "on reset" : "in round " + round,
+                    forfeited ? " and forfeits the match" : ""
+            );
+        }
+
+        /**
+         * @return Time of the last finished call in nanoseconds, or {@code 0} if the player was not called
+         */
+        long getLastNanos() {
+            return lastNanos;
+        }
+
+        /**
+         * @return {@code true} if the player exceeded the budget at least once in this match
+         */
+        boolean isOverrun() {
+            return overrun;
+        }
+
+        /**
+         * @return {@code true} if the player forfeited the match, and its score should be zero
+         */
+        boolean isForfeited() {
+            return forfeited;
+        }
+
+    }
+
+}
@@ -2,7 +2,10 @@ package name.kezzyhlo.moose_game;
 
 import name.kezzyhlo.moose_game.players.*;
 
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -11,9 +14,10 @@ import java.util.*;
 public final class Tournament {
 
     /**
-     * List of all tactics, and amount of players for each tactic
+     * List of all tactics, and amount of players for each tactic.
+     * The order is preserved, so that players get the same random generators for the same seed
      */
-    private static final Map<Class<? extends Player>, Integer> PLAYERS = new HashMap<>();
+    private static final Map<Class<? extends Player>, Integer> PLAYERS = new LinkedHashMap<>();
     static {
         PLAYERS.put(RandomPlayer.class, 1);
         PLAYERS.put(RandomNonRepeatablePlayer.class, 1);
@@ -25,9 +29,101 @@ public final class Tournament {
     }
 
     /**
-     * Defines amount of rounds in each match of the tournament
+     * Minimal amount of rounds in each match of the tournament
      */
-    private static final int NUMBER_OF_ROUNDS = Random.randomInt(100, 1000);
+    static final int MIN_NUMBER_OF_ROUNDS = 100;
+
+    /**
+     * Maximal amount of rounds in each match of the tournament
+     */
+    static final int MAX_NUMBER_OF_ROUNDS = 1000;
+
+    /**
+     * How many times each pair of players plays.
+     * Both players get their scores from each match, so one match per pair is enough,
+     * but more repeats reduce the influence of randomness
+     * @see RoundRobinSchedule#unorderedPairs(int, int)
+     */
+    private static final int NUMBER_OF_REPEATS = 1;
+
+    /**
+     * If {@code true}, all copies of the same strategy play exactly the same matches,
+     * and each match between two strategies is played only once.
+     * This changes the results, because copies no longer get independent random generators
+     * @see ParallelTournament#setSharedSeeds(boolean)
+     */
+    private static final boolean MEMOISE_COPIES = false;
+
+    /**
+     * If positive, instead of the round robin each player challenges only this amount of random opponents,
+     * and the results are printed with their standard errors.
+     * It is meant for populations, which are too big for all pairs to play
+     * @see RandomOpponentsSchedule
+     */
+    private static final int OPPONENTS_PER_PLAYER = 0;
+
+    /**
+     * If positive, matches are replicated until the 95% confidence interval of each player's mean payoff per round
+     * is not wider than this value in each direction, or until the player's place in the ranking is certain.
+     * Results are printed with their confidence intervals
+     * @see AdaptiveTournament
+     */
+    private static final double TARGET_CONFIDENCE_INTERVAL = 0;
+
+    /**
+     * Maximal amount of matches, played when {@link Tournament#TARGET_CONFIDENCE_INTERVAL} is set
+     */
+    private static final long MAX_ADAPTIVE_MATCHES = 100_000;
+
+    /**
+     * If {@code true}, time of each move and match is measured, and the table with metrics of each strategy
+     * is printed at the end of the tournament
+     * @see Metrics
+     */
+    private static final boolean COLLECT_METRICS = false;
+
+    /**
+     * If positive, matches are split between this amount of worker processes, each running in its own JVM.
+     * The results are the same as in one process, but metrics, time budgets, the cache and checkpoints are not used
+     * @see ShardedTournament
+     */
+    private static final int SHARDS = 0;
+
+    /**
+     * If positive, each move and reset of a player may take at most this amount of milliseconds.
+     * A player, which does not answer in time, does not choose any field in this round
+     * @see TimeBudget
+     */
+    private static final long MOVE_TIME_BUDGET_MILLIS = 0;
+
+    /**
+     * If positive, all moves of a player in one match may take at most this amount of milliseconds in total,
+     * after which the player stops choosing fields until the end of the match
+     */
+    private static final long MATCH_TIME_BUDGET_MILLIS = 0;
+
+    /**
+     * If {@code true}, a player, which exceeds the time budget, forfeits the whole match and gets zero payoff in it
+     */
+    private static final boolean FORFEIT_ON_TIMEOUT = false;
+
+    /**
+     * If positive, the ranking of the players is printed every this amount of seconds while the tournament is running.
+     * Early rankings of the round robin are based on a part of the opponents of each player,
+     * so they are less reliable than their confidence intervals show, while sampled schedules have no such bias
+     * @see ConsoleLeaderboard
+     */
+    private static final long LEADERBOARD_PERIOD_SECONDS = 10;
+
+    /**
+     * Amount of the best players, shown in the periodic ranking
+     */
+    private static final int LEADERBOARD_SIZE = 10;
+
+    /**
+     * Precomputed payoffs for the {@link Tournament#vegetationAmount(int)} function
+     */
+    public static final PayoffTable PAYOFF_TABLE = new PayoffTable(Tournament::vegetationAmount);
 
     /**
      * Calculates the amount of vegetation on a field, given parameter X of this field
@@ -40,7 +136,8 @@ public final class Tournament {
     }
 
     /**
-     * Calculates the payoff of one player's move
+     * Calculates the payoff of one player's move.
+     * Values of {@link Tournament#vegetationAmount(int)} are taken from {@link Tournament#PAYOFF_TABLE}
      *
      * @param x Current values of X for each of fields
      * @param move The move made by the player
@@ -49,121 +146,250 @@ public final class Tournament {
      */
     @SuppressWarnings("WeakerAccess")
     public static double payoff(int[] x, int move, int opponentMove) {
-        if (move == opponentMove) return 0;
-        if (move <= 0 || move > 3) return 0;
-        return vegetationAmount(x[move]) - vegetationAmount(0);
+        return PAYOFF_TABLE.payoff(x, move, opponentMove);
     }
 
     /**
-     * The main method.
-     *
-     * Performs tournament, where players defined in {@link Tournament#PLAYERS}
-     * list are playing against each other in pairs.
+     * Creates list of player instances, as defined in {@link Tournament#PLAYERS}
      *
-     * The scores are calculated, summed and outputted.
-     * Different level of detail will be printed, depending on {@link Log#LOG_LEVEL}
+     * @return List of players, which take part in the tournament
      */
-    public static void main(String[] args) {
-
-        // create list of player instances
+    public static List<Player> createPlayers() {
         List<Player> players = new ArrayList<>();
         for (Map.Entry<Class<? extends Player>, Integer> entry : PLAYERS.entrySet()) {
             try {
                 int amount = entry.getValue();
                 Class<? extends Player> playerClass = entry.getKey();
                 for (int i = 0; i < amount; i++) {
-                    players.add(playerClass.newInstance());
+                    players.add(StrategyRegistry.create(playerClass));
                 }
             } catch (ReflectiveOperationException e) {
                 Log.log(Log.LogLevel.LOG_ONLY_ERRORS, "Something went wrong during creating %s\n", entry.getKey().getSimpleName());
                 e.printStackTrace();
             }
         }
+        return players;
+    }
+
+    /**
+     * The main method.
+     *
+     * Performs tournament, where players defined in {@link Tournament#PLAYERS}
+     * list are playing against each other in pairs.
+     * Each pair plays {@link Tournament#NUMBER_OF_REPEATS} times, and both players get their scores.
+     * Matches are played concurrently by {@link ParallelTournament}.
+     *
+     * The scores are calculated, summed and outputted.
+     * Different level of detail will be printed, depending on {@link Log#LOG_LEVEL}
+     *
+     * @param args Optional seed of the tournament. The same seed gives the same results.
+     *             If it is not given, random seed is chosen and printed.
+     *             Optional second argument is the file, to which events of all matches are written
+     *             by {@link AsyncFileEventSink}, in CSV format for {@code .csv} files,
+     *             as a compressed {@link TraceWriter trace} for {@code .trace} files and in binary otherwise,
+     *             or {@code -} if events are not needed.
+     *             Optional third argument is the {@link Checkpoint} file. If the tournament with the same seed
+     *             was interrupted, it is resumed from this file, and only unfinished matches are played
+     * @throws IOException if events or the checkpoint can not be written to the files
+     */
+    public static void main(String[] args) throws IOException {
+
+        long seed = args.length > 0 ? Long.parseLong(args[0]) : new Random().nextLong();
+        Random random = new Random(seed);
+        int numberOfRounds = random.nextInt(MIN_NUMBER_OF_ROUNDS, MAX_NUMBER_OF_ROUNDS);
+        List<Player> players = createPlayers();
 
-        Log.log(Log.LogLevel.LOG_INFO, "Number of rounds: %d\n", NUMBER_OF_ROUNDS);
+        Log.log(Log.LogLevel.LOG_INFO, "Seed: %d\n", seed);
+        Log.log(Log.LogLevel.LOG_INFO, "Number of rounds: %d\n", numberOfRounds);
         Log.log(Log.LogLevel.LOG_INFO, "Number of players: %d\n", players.size());
         Log.log(Log.LogLevel.LOG_INFO, "\n");
 
-        for (Player player1 : players) {
-            double score_sum = 0;
-            for (Player player2 : players) {
-                if (player1 == player2) continue;
+        if (OPPONENTS_PER_PLAYER > 0) {
+            playSampled(players, numberOfRounds, random);
+            return;
+        }
+        if (TARGET_CONFIDENCE_INTERVAL > 0) {
+            playAdaptive(players, numberOfRounds, random);
+            return;
+        }
+        if (SHARDS > 0) {
+            ScoreMatrix scores = new ShardedTournament(players, numberOfRounds, random)
+                    .setSchedule(RoundRobinSchedule.unorderedPairs(players.size(), NUMBER_OF_REPEATS))
+                    .setShards(SHARDS)
+                    .setSharedSeeds(MEMOISE_COPIES)
+                    .setTimeBudget(createTimeBudget())
+                    .play();
+            printScores(players, numberOfRounds, scores);
+            return;
+        }
 
-                Log.log(
-                        Log.LogLevel.LOG_MOVES,
-                        "%s is playing with %s\n",
-                        player1, player2
-                );
+        Schedule schedule = RoundRobinSchedule.unorderedPairs(players.size(), NUMBER_OF_REPEATS);
+        ParallelTournament tournament = new ParallelTournament(players, numberOfRounds, PAYOFF_TABLE, random)
+                .setSchedule(schedule);
+        MatchCache cache = MEMOISE_COPIES ? new MatchCache() : null;
+        Metrics metrics = COLLECT_METRICS ? new Metrics() : null;
+        TimeBudget timeBudget = createTimeBudget();
+        tournament.setCache(cache).setSharedSeeds(MEMOISE_COPIES).setMetrics(metrics).setTimeBudget(timeBudget);
+        Checkpoint checkpoint = args.length > 2
+                ? Checkpoint.open(Paths.get(args[2]), seed, tournament.fingerprint(), schedule.size())
+                : null;
+        ConsoleLeaderboard view = startLeaderboard(tournament, players, numberOfRounds, schedule);
+        ScoreMatrix scores;
+        try (checkpoint; view) {
+            if (checkpoint != null) {
+                Log.log(Log.LogLevel.LOG_INFO, "Matches restored from checkpoint: %d\n\n", checkpoint.getRestored());
+            }
+            tournament.setCheckpoint(checkpoint);
+            if (args.length > 1 && args[1].endsWith(".trace")) {
+                try (TraceWriter trace = new TraceWriter(Paths.get(args[1]), PAYOFF_TABLE)) {
+                    scores = tournament.setEvents(trace).play();
+                }
+            } else if (args.length > 1 && !args[1].equals("-")) {
+                try (AsyncFileEventSink events = AsyncFileEventSink.forFile(Paths.get(args[1]))) {
+                    scores = tournament.setEvents(events).play();
+                }
+            } else {
+                scores = tournament.play();
+            }
+        }
+        if (cache != null) {
+            Log.log(Log.LogLevel.LOG_INFO, "Matches from cache: %d, played: %d\n\n", cache.getHits(), cache.getMisses());
+        }
 
-                // initialize players and the game
-                player1.reset();
-                player2.reset();
-                double score1 = 0, score2 = 0;
-                int[] x = {-1, 1, 1, 1};
-                int prevMove1 = 0, prevMove2 = 0;
-
-                for (int i = 0; i < NUMBER_OF_ROUNDS; i++) {
-
-                    // get players' moves
-                    int move1 = player1.move(prevMove2, x[1], x[2], x[3]);
-                    int move2 = player2.move(prevMove1, x[1], x[2], x[3]);
-
-                    // update players' scores
-                    score1 += payoff(x, move1, move2);
-                    score2 += payoff(x, move2, move1);
-
-                    // log detailed info
-                    Log.log(
-                            Log.LogLevel.LOG_MOVES,
-                            "Round %d. Vegetation: %s. %s chooses %d and %s chooses %d. Scores: %f, %f.\n",
-                            i,
-                            Arrays.toString(x),
-                            player1, move1, player2, move2,
-                            score1, score2
-                    );
-
-                    // update the X values of all fields
-                    if (move1 >= 1 && move1 <= 3) {
-                        x[move1] -= 2;
-                    }
-                    if (move1 != move2 && move2 >= 1 && move2 <= 3) {
-                        x[move2] -= 2;
-                    }
-                    for (int j = 1; j <= x.length - 1; j++) {
-                        x[j]++;
-                        if (x[j] < 0) {
-                            x[j] = 0;
-                        }
-                    }
-
-                    // save moves for later
-                    prevMove1 = move1;
-                    prevMove2 = move2;
+        printScores(players, numberOfRounds, scores);
 
-                }
+        if (metrics != null) {
+            Log.log(Log.LogLevel.LOG_INFO, "\n");
+            metrics.printSummary(Log.LogLevel.LOG_INFO);
+        }
+        if (timeBudget != null) {
+            timeBudget.printSummary(Log.LogLevel.LOG_INFO);
+        }
+    }
+
+    /**
+     * @return Time budget, configured by {@link Tournament#MOVE_TIME_BUDGET_MILLIS}
+     *         and {@link Tournament#MATCH_TIME_BUDGET_MILLIS}, or {@code null} if players are not limited
+     */
+    private static TimeBudget createTimeBudget() {
+        if (MOVE_TIME_BUDGET_MILLIS <= 0 && MATCH_TIME_BUDGET_MILLIS <= 0) {
+            return null;
+        }
+        return new TimeBudget(
+                TimeUnit.MILLISECONDS.toNanos(MOVE_TIME_BUDGET_MILLIS),
+                TimeUnit.MILLISECONDS.toNanos(MATCH_TIME_BUDGET_MILLIS)
+        ).setForfeit(FORFEIT_ON_TIMEOUT);
+    }
+
+    /**
+     * Connects a {@link Leaderboard} to the tournament, and starts printing it every {@link Tournament#LEADERBOARD_PERIOD_SECONDS}
+     *
+     * @return The view, which should be closed after the tournament, or {@code null} if the ranking is not printed
+     */
+    private static ConsoleLeaderboard startLeaderboard(
+            ParallelTournament tournament, List<Player> players, int numberOfRounds, Schedule schedule
+    ) {
+        if (LEADERBOARD_PERIOD_SECONDS <= 0) {
+            return null;
+        }
+        Leaderboard leaderboard = new Leaderboard(players.size(), numberOfRounds);
+        tournament.setResultListener(leaderboard);
+        return new ConsoleLeaderboard(
+                leaderboard, players, schedule.size(),
+                TimeUnit.SECONDS.toMillis(LEADERBOARD_PERIOD_SECONDS), LEADERBOARD_SIZE
+        );
+    }
+
+    /**
+     * Prints total and average payoffs of each player and, depending on {@link Log#LOG_LEVEL},
+     * their payoffs against each opponent
+     */
+    private static void printScores(List<Player> players, int numberOfRounds, ScoreMatrix scores) {
+        for (int i = 0; i < players.size(); i++) {
+            Player player1 = players.get(i);
+            for (int j = 0; j < players.size() && Log.isEnabled(Log.LogLevel.LOG_DETAILED_PAYOFFS); j++) {
+                if (i == j) continue;
+                Player player2 = players.get(j);
+                int matches = scores.getMatches(i, j);
+                double score1 = scores.getScore(i, j), score2 = scores.getScore(j, i);
 
                 Log.log(Log.LogLevel.LOG_DETAILED_PAYOFFS,
                         "Payoffs: %f (%f on average) for %s and %f (%f on average) for %s\n",
-                        score1, score1 / NUMBER_OF_ROUNDS, player1,
-                        score2, score2 / NUMBER_OF_ROUNDS, player2
+                        score1, score1 / numberOfRounds / matches, player1,
+                        score2, score2 / numberOfRounds / matches, player2
                 );
-                Log.log(Log.LogLevel.LOG_MOVES, "\n");
-
-                score_sum += score1;
             }
 
+            double scoreSum = scores.getScoreSum(i);
             Log.log(
                     Log.LogLevel.LOG_PAYOFFS_SUM,
                     "%s: %18.10f (%.10f on average)\n",
                     String.format("%70s", player1),
-                    score_sum,
-                    score_sum / NUMBER_OF_ROUNDS / (players.size() - 1)
+                    scoreSum,
+                    scoreSum / numberOfRounds / scores.getMatchCount(i)
             );
             Log.log(Log.LogLevel.LOG_DETAILED_PAYOFFS, "\n");
             Log.log(Log.LogLevel.LOG_MOVES, "\n");
         }
     }
 
+    /**
+     * Plays {@link Tournament#OPPONENTS_PER_PLAYER} random matches of each player
+     * and prints the results
+     */
+    private static void playSampled(List<Player> players, int numberOfRounds, Random random) {
+        Schedule schedule = RandomOpponentsSchedule.create(players.size(), OPPONENTS_PER_PLAYER, random.split(-1));
+        TimeBudget timeBudget = createTimeBudget();
+        ParallelTournament tournament = new ParallelTournament(players, numberOfRounds, PAYOFF_TABLE, random)
+                .setSchedule(schedule)
+                .setTimeBudget(timeBudget);
+        ConsoleLeaderboard view = startLeaderboard(tournament, players, numberOfRounds, schedule);
+        Standings standings;
+        try (view) {
+            standings = tournament.play(new Standings(players.size()));
+        }
+
+        Log.log(Log.LogLevel.LOG_INFO, "Number of matches: %d\n\n", schedule.size());
+        printStandings(players, standings);
+        if (timeBudget != null) {
+            Log.log(Log.LogLevel.LOG_INFO, "\n");
+            timeBudget.printSummary(Log.LogLevel.LOG_INFO);
+        }
+    }
+
+    /**
+     * Replicates matches until all players are settled, as described in {@link AdaptiveTournament},
+     * and prints the mean payoff per round of each player with its 95% confidence interval
+     */
+    private static void playAdaptive(List<Player> players, int numberOfRounds, Random random) {
+        TimeBudget timeBudget = createTimeBudget();
+        AdaptiveTournament tournament = new AdaptiveTournament(players, numberOfRounds, PAYOFF_TABLE, random)
+                .setTargetInterval(TARGET_CONFIDENCE_INTERVAL)
+                .setMaxMatches(MAX_ADAPTIVE_MATCHES)
+                .setTimeBudget(timeBudget);
+        Standings standings = tournament.play();
+
+        Log.log(Log.LogLevel.LOG_INFO, "Number of matches: %d\n\n", tournament.getMatchesPlayed());
+        printStandings(players, standings);
+        if (timeBudget != null) {
+            Log.log(Log.LogLevel.LOG_INFO, "\n");
+            timeBudget.printSummary(Log.LogLevel.LOG_INFO);
+        }
+    }
+
+    private static void printStandings(List<Player> players, Standings standings) {
+        for (int i : standings.ranking()) {
+            Log.log(
+                    Log.LogLevel.LOG_PAYOFFS_SUM,
+                    "%s: %.10f +- %.10f (%d matches)\n",
+                    String.format("%70s", players.get(i)),
+                    standings.getMean(i),
+                    standings.getConfidenceInterval(i),
+                    standings.getMatchCount(i)
+            );
+        }
+    }
+
     /**
      * No instances needed for this class
      */
@@ -0,0 +1,361 @@
+package name.kezzyhlo.moose_game;
+
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+
+/**
+ * Reads the trace, written by {@link TraceWriter}.
+ *
+ * Only the index is loaded, when the trace is opened. Each match is read on demand:
+ * its block is memory-mapped, decompressed and decoded into columns of {@link MatchTrace},
+ * so analysis can stream through millions of matches one by one, or jump to a single match by its id,
+ * without loading the whole trace. Matches are sorted by their ids.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TraceReader implements Closeable {
+
+    private final FileChannel channel;
+    private final long[] matchIds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] rounds;
+    private final String[] players1;
+    private final String[] players2;
+    private final double[] scores1;
+    private final double[] scores2;
+    private final Inflater inflater = new Inflater();
+
+    /**
+     * Opens the trace and reads its index
+     *
+     * @param file The file, written by {@link TraceWriter}
+     * @throws IOException if the file can not be read, or it is not a complete trace
+     */
+    public TraceReader(Path file) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            ByteBuffer header = read(0, TraceWriter.HEADER_SIZE);
+            if (size < TraceWriter.HEADER_SIZE + TraceWriter.FOOTER_SIZE
+                    || header.getLong() != TraceWriter.MAGIC || header.getInt() != TraceWriter.VERSION) {
+                throw new IOException(file + " is not a trace");
+            }
+            ByteBuffer footer = read(size - TraceWriter.FOOTER_SIZE, TraceWriter.FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            int count = footer.getInt();
+            if (footer.getLong() != TraceWriter.MAGIC) {
+                throw new IOException(file + " is not complete: the tournament was not finished, or the trace was not closed");
+            }
+
+            matchIds = new long[count];
+            offsets = new long[count];
+            lengths = new int[count];
+            rounds = new int[count];
+            players1 = new String[count];
+            players2 = new String[count];
+            scores1 = new double[count];
+            scores2 = new double[count];
+            ByteBuffer index = channel.map(
+                    FileChannel.MapMode.READ_ONLY, indexOffset, size - TraceWriter.FOOTER_SIZE - indexOffset
+            );
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(index));
+            for (int k = 0; k < count; k++) {
+                matchIds[k] = in.readLong();
+                offsets[k] = in.readLong();
+                lengths[k] = in.readInt();
+                rounds[k] = in.readInt();
+                players1[k] = in.readUTF();
+                players2[k] = in.readUTF();
+                scores1[k] = in.readDouble();
+                scores2[k] = in.readDouble();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+            // keep reading until the buffer is full or the file ends
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * @return Amount of matches in the trace
+     */
+    public int size() {
+        return matchIds.length;
+    }
+
+    /**
+     * Finds the match by its id
+     *
+     * @param matchId Id of the match, given by the tournament
+     * @return Index of the match in this trace, or {@code -1} if there is no such match
+     */
+    public int indexOf(long matchId) {
+        int index = Arrays.binarySearch(matchIds, matchId);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Id of the match, given by the tournament
+     */
+    public long getMatchId(int match) {
+        return matchIds[match];
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Amount of rounds in the match
+     */
+    public int getRounds(int match) {
+        return rounds[match];
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Name of the first player, as returned by its {@code toString()}
+     */
+    public String getPlayer1(int match) {
+        return players1[match];
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Name of the second player, as returned by its {@code toString()}
+     */
+    public String getPlayer2(int match) {
+        return players2[match];
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Total payoff of the first player, as reported by the tournament
+     */
+    public double getScore1(int match) {
+        return scores1[match];
+    }
+
+    /**
+     * @param match Index of the match in this trace
+     * @return Total payoff of the second player, as reported by the tournament
+     */
+    public double getScore2(int match) {
+        return scores2[match];
+    }
+
+    /**
+     * Reads all rounds of the match
+     *
+     * @param match Index of the match in this trace
+     * @return Columns of the match
+     * @throws IOException if the block of the match can not be read or is corrupted
+     */
+    public MatchTrace read(int match) throws IOException {
+        ByteBuffer block = channel.map(FileChannel.MapMode.READ_ONLY, offsets[match], lengths[match]);
+        int encodedSize = block.getInt();
+        byte[] encoded = new byte[encodedSize];
+        inflater.reset();
+        inflater.setInput(block);
+        try {
+            int length = 0;
+            while (length < encodedSize && !inflater.finished()) {
+                int inflated = inflater.inflate(encoded, length, encodedSize - length);
+                if (inflated == 0 && inflater.needsInput()) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != encodedSize) {
+                throw new IOException("Block of match " + matchIds[match] + " is truncated");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Block of match " + matchIds[match] + " is corrupted", e);
+        }
+        return new MatchTrace(matchIds[match], ByteBuffer.wrap(encoded));
+    }
+
+    /**
+     * Replays the match, giving its rounds to the listener in the same way, as the tournament did
+     *
+     * @param match Index of the match in this trace
+     * @param listener Listener, for example the one of {@link ConsoleEventSink}
+     * @throws IOException if the block of the match can not be read or is corrupted
+     */
+    public void replay(int match, EventSink.MatchListener listener) throws IOException {
+        MatchTrace trace = read(match);
+        int[] x = new int[4];
+        double score1 = 0, score2 = 0;
+        for (int i = 0; i < trace.getRounds(); i++) {
+            for (int field = 1; field <= 3; field++) {
+                x[field] = trace.getX(i, field);
+            }
+            score1 += trace.getPayoff1(i);
+            score2 += trace.getPayoff2(i);
+            listener.roundPlayed(i, x, trace.getMove1(i), trace.getMove2(i), score1, score2);
+        }
+        listener.matchFinished(scores1[match], scores2[match]);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        channel.close();
+    }
+
+    /**
+     * All rounds of one match, decoded into columns
+     */
+    public static final class MatchTrace {
+
+        private final long matchId;
+        private final byte[] moves1;
+        private final byte[] moves2;
+        private final int[][] x = new int[4][];
+        private final double[] payoffs1;
+        private final double[] payoffs2;
+
+        private MatchTrace(long matchId, ByteBuffer encoded) {
+            this.matchId = matchId;
+            int rounds = getVarInt(encoded);
+            moves1 = new byte[rounds];
+            moves2 = new byte[rounds];
+            encoded.get(moves1);
+            encoded.get(moves2);
+            for (int field = 1; field <= 3; field++) {
+                int[] values = new int[rounds];
+                int previous = 0;
+                for (int i = 0; i < rounds; i++) {
+                    int zigzag = getVarInt(encoded);
+                    previous += zigzag >>> 1 ^ -(zigzag & 1);
+                    values[i] = previous;
+                }
+                x[field] = values;
+            }
+            double[] dictionary = new double[getVarInt(encoded)];
+            for (int k = 0; k < dictionary.length; k++) {
+                dictionary[k] = Double.longBitsToDouble(encoded.getLong());
+            }
+            payoffs1 = new double[rounds];
+            payoffs2 = new double[rounds];
+            for (int i = 0; i < rounds; i++) {
+                payoffs1[i] = dictionary[getVarInt(encoded)];
+            }
+            for (int i = 0; i < rounds; i++) {
+                payoffs2[i] = dictionary[getVarInt(encoded)];
+            }
+        }
+
+        private static int getVarInt(ByteBuffer buffer) {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = buffer.get();
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        /**
+         * @return Id of the match, given by the tournament
+         */
+        public long getMatchId() {
+            return matchId;
+        }
+
+        /**
+         * @return Amount of rounds in the match
+         */
+        public int getRounds() {
+            return moves1.length;
+        }
+
+        /**
+         * @param round Index of the round, starting from {@code 0}
+         * @return The move of the first player
+         */
+        public int getMove1(int round) {
+            return moves1[round];
+        }
+
+        /**
+         * @param round Index of the round, starting from {@code 0}
+         * @return The move of the second player
+         */
+        public int getMove2(int round) {
+            return moves2[round];
+        }
+
+        /**
+         * @param round Index of the round, starting from {@code 0}
+         * @param field The field, 1 for A, 2 for B and 3 for C
+         * @return X value of the field, when the players made their moves
+         */
+        public int getX(int round, int field) {
+            return x[field][round];
+        }
+
+        /**
+         * @param round Index of the round, starting from {@code 0}
+         * @return Payoff of the first player in this round
+         */
+        public double getPayoff1(int round) {
+            return payoffs1[round];
+        }
+
+        /**
+         * @param round Index of the round, starting from {@code 0}
+         * @return Payoff of the second player in this round
+         */
+        public double getPayoff2(int round) {
+            return payoffs2[round];
+        }
+
+    }
+
+    /**
+     * Stream over the mapped index, so that it can be read by {@link DataInputStream}
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+
+        private ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] bytes, int offset, int length) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            length = Math.min(length, buffer.remaining());
+            buffer.get(bytes, offset, length);
+            return length;
+        }
+
+    }
+
+}
@@ -0,0 +1,384 @@
+package name.kezzyhlo.moose_game;
+
+import name.kezzyhlo.moose_game.players.Player;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+
+/**
+ * Writes every round of every match into a compact trace file, which can be read back by {@link TraceReader}.
+ *
+ * Each match is one compressed block, in which rounds are stored by columns: moves of both players
+ * as bytes, X values of each field as differences from the previous round, and payoffs of both players
+ * as indexes in the dictionary of distinct payoffs of the match. Columns are very repetitive,
+ * so after compression a round takes about two bytes. The block is compressed by the thread, which played the match,
+ * and written at its own position in the file, so threads do not wait for each other.
+ * At the end of the file, there is the index of all matches, so that any match can be read without the others:
+ * <pre>
+ * header: magic (8 bytes), version (4)
+ * block:  uncompressed length (4), deflated columns
+ * index:  for each match: id (8), offset of the block (8), length of the block (4), rounds (4),
+ *         names of the players (UTF), final scores (8 + 8)
+ * footer: offset of the index (8), amount of matches (4), magic (8)
+ * </pre>
+ * Payoffs of rounds are calculated by the {@link PayoffTable} of the tournament,
+ * so they are exactly the ones, which players got.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class TraceWriter implements EventSink, Closeable {
+
+    static final long MAGIC = 0x4d4f4f5345545243L; // "MOOSETRC"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 12;
+    static final int FOOTER_SIZE = 20;
+
+    private final FileChannel channel;
+    private final PayoffTable payoffs;
+
+    /**
+     * Position in the file, at which the next block will be written
+     */
+    private final AtomicLong position = new AtomicLong(HEADER_SIZE);
+
+    /**
+     * Index entries of all written matches
+     */
+    private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Buffers of the current thread, reused between matches
+     */
+    private final ThreadLocal<Columns> columns = ThreadLocal.withInitial(Columns::new);
+
+    /**
+     * Creates the file (or truncates existing one)
+     *
+     * @param file The file to write the trace to
+     * @param payoffs Table, by which payoffs of the rounds are calculated
+     * @throws IOException if the file can not be opened
+     */
+    public TraceWriter(Path file, PayoffTable payoffs) throws IOException {
+        this.payoffs = payoffs;
+        this.channel = FileChannel.open(
+                file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        );
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putInt(VERSION);
+        header.flip();
+        write(header, 0);
+    }
+
+    @Override
+    public MatchListener matchStarted(long matchId, Player player1, Player player2, int numberOfRounds) {
+        Columns local = columns.get();
+        Columns match = local.inUse ? new Columns() : local;
+        match.start(numberOfRounds);
+        String name1 = player1.toString(), name2 = player2.toString();
+
+        return new MatchListener() {
+
+            @Override
+            public void roundPlayed(int round, int[] x, int move1, int move2, double score1, double score2) {
+                match.add(x, move1, move2, payoffs.payoff(x, move1, move2), payoffs.payoff(x, move2, move1));
+            }
+
+            @Override
+            public void matchFinished(double score1, double score2) {
+                ByteBuffer block = match.finish();
+                int length = block.remaining();
+                long offset = position.getAndAdd(length);
+                write(block, offset);
+                entries.add(new Entry(matchId, offset, length, match.rounds, name1, name2, score1, score2));
+            }
+
+        };
+    }
+
+    /**
+     * Writes the index of the matches and closes the file.
+     * Should be called when no matches are being played anymore
+     *
+     * @throws IOException if the index can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        List<Entry> sorted = new ArrayList<>(entries);
+        sorted.sort(Comparator.comparingLong(entry -> entry.matchId));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(bytes);
+        for (Entry entry : sorted) {
+            index.writeLong(entry.matchId);
+            index.writeLong(entry.offset);
+            index.writeInt(entry.length);
+            index.writeInt(entry.rounds);
+            index.writeUTF(entry.player1);
+            index.writeUTF(entry.player2);
+            index.writeDouble(entry.score1);
+            index.writeDouble(entry.score2);
+        }
+        long indexOffset = position.get();
+        index.writeLong(indexOffset);
+        index.writeInt(sorted.size());
+        index.writeLong(MAGIC);
+        index.flush();
+        try {
+            write(ByteBuffer.wrap(bytes.toByteArray()), indexOffset);
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void write(ByteBuffer buffer, long offset) {
+        try {
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Index entry of one match
+     */
+    private static final class Entry {
+
+        final long matchId;
+        final long offset;
+        final int length;
+        final int rounds;
+        final String player1;
+        final String player2;
+        final double score1;
+        final double score2;
+
+        Entry(long matchId, long offset, int length, int rounds,
+              String player1, String player2, double score1, double score2) {
+            this.matchId = matchId;
+            this.offset = offset;
+            this.length = length;
+            this.rounds = rounds;
+            this.player1 = player1;
+            this.player2 = player2;
+            this.score1 = score1;
+            this.score2 = score2;
+        }
+
+    }
+
+    /**
+     * Columns of one match, and the buffers to encode and compress them
+     */
+    private static final class Columns {
+
+        boolean inUse = false;
+        int rounds = 0;
+        byte[] moves1 = new byte[0], moves2 = new byte[0];
+        int[] xA = new int[0], xB = new int[0], xC = new int[0];
+        double[] payoffs1 = new double[0], payoffs2 = new double[0];
+
+        /**
+         * Dictionary of distinct payoffs: open addressing table from bits of the payoff to its index.
+         * Slots are occupied only if their stamp is the current one, so it is cleared by changing the stamp
+         */
+        long[] dictionaryKeys = new long[1 << 10];
+        int[] dictionaryValues = new int[1 << 10];
+        int[] dictionaryStamps = new int[1 << 10];
+        double[] dictionary = new double[1 << 9];
+        int[] codes = new int[0];
+        int dictionarySize = 0;
+        int stamp = 0;
+
+        byte[] encoded = new byte[1 << 12];
+        int encodedSize = 0;
+        byte[] compressed = new byte[1 << 12];
+        final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+        void start(int numberOfRounds) {
+            inUse = true;
+            rounds = 0;
+            if (moves1.length < numberOfRounds) {
+                moves1 = new byte[numberOfRounds];
+                moves2 = new byte[numberOfRounds];
+                xA = new int[numberOfRounds];
+                xB = new int[numberOfRounds];
+                xC = new int[numberOfRounds];
+                payoffs1 = new double[numberOfRounds];
+                payoffs2 = new double[numberOfRounds];
+            }
+        }
+
+        void add(int[] x, int move1, int move2, double payoff1, double payoff2) {
+            if (rounds == moves1.length) {
+                grow();
+            }
+            moves1[rounds] = (byte) move1;
+            moves2[rounds] = (byte) move2;
+            xA[rounds] = x[1];
+            xB[rounds] = x[2];
+            xC[rounds] = x[3];
+            payoffs1[rounds] = payoff1;
+            payoffs2[rounds] = payoff2;
+            rounds++;
+        }
+
+        /**
+         * Only for the case, when a match has more rounds than it said in the beginning
+         */
+        private void grow() {
+            int capacity = Math.max(16, moves1.length * 2);
+            moves1 = Arrays.copyOf(moves1, capacity);
+            moves2 = Arrays.copyOf(moves2, capacity);
+            xA = Arrays.copyOf(xA, capacity);
+            xB = Arrays.copyOf(xB, capacity);
+            xC = Arrays.copyOf(xC, capacity);
+            payoffs1 = Arrays.copyOf(payoffs1, capacity);
+            payoffs2 = Arrays.copyOf(payoffs2, capacity);
+        }
+
+        /**
+         * Encodes and compresses the columns
+         *
+         * @return The block, ready to be written
+         */
+        ByteBuffer finish() {
+            encodedSize = 0;
+            putVarInt(rounds);
+            ensure(2 * rounds);
+            System.arraycopy(moves1, 0, encoded, encodedSize, rounds);
+            encodedSize += rounds;
+            System.arraycopy(moves2, 0, encoded, encodedSize, rounds);
+            encodedSize += rounds;
+            putDeltas(xA);
+            putDeltas(xB);
+            putDeltas(xC);
+
+            // payoffs are replaced by their indexes in the dictionary, which is written before them
+            if (++stamp == 0) {
+                Arrays.fill(dictionaryStamps, 0);
+                stamp = 1;
+            }
+            dictionarySize = 0;
+            if (codes.length < 2 * rounds) {
+                codes = new int[2 * rounds];
+            }
+            for (int i = 0; i < rounds; i++) {
+                codes[i] = code(payoffs1[i]);
+                codes[rounds + i] = code(payoffs2[i]);
+            }
+            putVarInt(dictionarySize);
+            for (int k = 0; k < dictionarySize; k++) {
+                long bits = Double.doubleToRawLongBits(dictionary[k]);
+                ensure(8);
+                for (int shift = 56; shift >= 0; shift -= 8) {
+                    encoded[encodedSize++] = (byte) (bits >>> shift);
+                }
+            }
+            for (int i = 0; i < 2 * rounds; i++) {
+                putVarInt(codes[i]);
+            }
+
+            deflater.reset();
+            deflater.setInput(encoded, 0, encodedSize);
+            deflater.finish();
+            int length = 4;
+            if (compressed.length < encodedSize + 64) {
+                compressed = new byte[encodedSize + 64];
+            }
+            compressed[0] = (byte) (encodedSize >>> 24);
+            compressed[1] = (byte) (encodedSize >>> 16);
+            compressed[2] = (byte) (encodedSize >>> 8);
+            compressed[3] = (byte) encodedSize;
+            while (!deflater.finished()) {
+                if (length == compressed.length) {
+                    compressed = Arrays.copyOf(compressed, compressed.length * 2);
+                }
+                length += deflater.deflate(compressed, length, compressed.length - length);
+            }
+            inUse = false;
+            return ByteBuffer.wrap(compressed, 0, length);
+        }
+
+        private int code(double payoff) {
+            long bits = Double.doubleToRawLongBits(payoff);
+            int mask = dictionaryKeys.length - 1;
+            int slot = (int) (bits ^ bits >>> 32) * 0x9e3779b9 >>> 16 & mask;
+            while (dictionaryStamps[slot] == stamp) {
+                if (dictionaryKeys[slot] == bits) {
+                    return dictionaryValues[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            if (dictionarySize * 2 >= dictionaryKeys.length) {
+                growDictionary();
+                return code(payoff);
+            }
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+            }
+            dictionaryStamps[slot] = stamp;
+            dictionaryKeys[slot] = bits;
+            dictionaryValues[slot] = dictionarySize;
+            dictionary[dictionarySize] = payoff;
+            return dictionarySize++;
+        }
+
+        private void growDictionary() {
+            int capacity = dictionaryKeys.length * 2;
+            dictionaryKeys = new long[capacity];
+            dictionaryValues = new int[capacity];
+            dictionaryStamps = new int[capacity];
+            stamp = 1;
+            int size = dictionarySize;
+            dictionarySize = 0;
+            for (int k = 0; k < size; k++) {
+                code(dictionary[k]);
+            }
+        }
+
+        /**
+         * Writes differences between values of consecutive rounds, which are almost always {@code -1} or {@code 1}
+         */
+        private void putDeltas(int[] values) {
+            int previous = 0;
+            for (int i = 0; i < rounds; i++) {
+                int delta = values[i] - previous;
+                putVarInt(delta << 1 ^ delta >> 31);
+                previous = values[i];
+            }
+        }
+
+        private void putVarInt(int value) {
+            ensure(5);
+            while ((value & ~0x7f) != 0) {
+                encoded[encodedSize++] = (byte) (value & 0x7f | 0x80);
+                value >>>= 7;
+            }
+            encoded[encodedSize++] = (byte) value;
+        }
+
+        private void ensure(int bytes) {
+            if (encodedSize + bytes > encoded.length) {
+                encoded = Arrays.copyOf(encoded, Math.max(encoded.length * 2, encodedSize + bytes));
+            }
+        }
+
+    }
+
+}
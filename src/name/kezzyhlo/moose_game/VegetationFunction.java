@@ -0,0 +1,21 @@
+package name.kezzyhlo.moose_game;
+
+
+/**
+ * Function, which defines the amount of vegetation on a field, given parameter X of this field.
+ * The default one is {@link Tournament#vegetationAmount(int)}
+ *
+ * @see PayoffTable
+ */
+@FunctionalInterface
+public interface VegetationFunction {
+
+    /**
+     * Calculates the amount of vegetation on a field, given parameter X of this field
+     *
+     * @param x parameter X of the field
+     * @return the amount of vegetation on a field
+     */
+    double amount(int x);
+
+}
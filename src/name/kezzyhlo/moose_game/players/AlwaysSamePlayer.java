@@ -1,10 +1,9 @@
 package name.kezzyhlo.moose_game.players;
 
 
-import name.kezzyhlo.moose_game.Random;
-
 /**
  * This strategy selects random move in the first round, and then continues selecting it each time.
+ * The move is chosen before the match starts, so in a commons with more fields it is one of the first three.
  */
 public class AlwaysSamePlayer extends Player {
 
@@ -18,7 +17,7 @@ public class AlwaysSamePlayer extends Player {
      */
     @Override
     public void reset() {
-        move = Random.randomMove();
+        move = random().nextMove();
     }
 
     @Override
@@ -26,4 +25,28 @@ public class AlwaysSamePlayer extends Player {
         return move;
     }
 
-}
\ No newline at end of file
+    /**
+     * @return The chosen move, since nothing else changes during the match,
+     *         or {@link Player#UNKNOWN_STATE} for subclasses, whose state is not known here
+     */
+    @Override
+    public long getStateKey(GameState state) {
+        if (getClass() != AlwaysSamePlayer.class) {
+            return UNKNOWN_STATE;
+        }
+        return move;
+    }
+
+    /**
+     * The move is chosen in {@link AlwaysSamePlayer#reset()} using the random generator of the match.
+     * Subclasses may depend on anything else, so for them it is {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != AlwaysSamePlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
+    }
+
+}
@@ -3,9 +3,6 @@ package name.kezzyhlo.moose_game.players;
 
 import name.kezzyhlo.moose_game.Random;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * This is greedy strategy, which chooses the field with the best X value at the current round.
  * If there are two or more fields with the best X value, then it will select randomly between them.
@@ -14,20 +11,61 @@ public class BestFieldPlayer extends Player {
 
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
-        int[] x = {-1, xA, xB, xC};
-        int maxValue = xA;
-        List<Integer> maxIndexes = new ArrayList<>();
-        maxIndexes.add(1);
-        for (int i = 2; i <= x.length-1; i++) {
-            if (x[i] > maxValue) {
-                maxValue = x[i];
-                maxIndexes.clear();
-            }
-            if (x[i] >= maxValue) {
-                maxIndexes.add(i);
-            }
+        return bestFieldMove(xA, xB, xC, random());
+    }
+
+    /**
+     * Chooses between the best fields the same way as {@link BestFieldPlayer#bestFieldMove},
+     * but asks the state for them, so that it works for any amount of fields
+     */
+    @Override
+    public int move(GameState state) {
+        int maxCount = state.getBestFieldCount();
+        return state.getBestField(maxCount == 1 ? 0 : random().nextInt(maxCount));
+    }
+
+    /**
+     * Returns the move of this strategy. It is static, so that it can be reused by batch simulation
+     *
+     * @param xA     the argument X for a field A
+     * @param xB     the argument X for a field B
+     * @param xC     the argument X for a field C
+     * @param random random generator of the match
+     * @return the field with the best X value
+     */
+    public static int bestFieldMove(int xA, int xB, int xC, Random random) {
+        int maxValue = Math.max(xA, Math.max(xB, xC));
+        int maxCount = (xA == maxValue ? 1 : 0) + (xB == maxValue ? 1 : 0) + (xC == maxValue ? 1 : 0);
+
+        // select randomly which of the best fields to choose, and skip the others
+        int skip = maxCount == 1 ? 0 : random.nextInt(maxCount);
+        if (xA == maxValue && skip-- == 0) return 1;
+        if (xB == maxValue && skip-- == 0) return 2;
+        return 3;
+    }
+
+    /**
+     * @return {@code 0}, since this strategy keeps no state,
+     *         or {@link Player#UNKNOWN_STATE} for subclasses, whose state is not known here
+     */
+    @Override
+    public long getStateKey(GameState state) {
+        if (getClass() != BestFieldPlayer.class) {
+            return UNKNOWN_STATE;
+        }
+        return 0;
+    }
+
+    /**
+     * One of the best fields is chosen by the random generator of the match.
+     * Subclasses may depend on anything else, so for them it is {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != BestFieldPlayer.class) {
+            return Determinism.NONE;
         }
-        return Random.randomFromList(maxIndexes);
+        return Determinism.SEEDED;
     }
 
 }
@@ -46,11 +46,22 @@ public class CoopPlayer extends Player {
     }
 
     /**
-     * This constant denotes how many times should we wait while in {@link State#STATE_WAIT}.
+     * This constant denotes how many times should we wait while in {@link State#STATE_WAIT} by default.
      * This particular number was chosen, because {@link Tournament#vegetationAmount(int)}
      * grows insignificantly for larger {@code X} values
      */
-    private static final int TIMES_TO_WAIT = 5;
+    public static final int TIMES_TO_WAIT = 5;
+
+    /**
+     * How many times this player waits while in {@link State#STATE_WAIT}
+     * @see CoopPlayer#TIMES_TO_WAIT
+     */
+    private final int timesToWait;
+
+    /**
+     * Returned instead of a move, when the {@link CoopPlayer#ANOTHER_STRATEGY} should move
+     */
+    private static final int NOT_COOP = -1;
 
     /**
      * This is the fallback strategy that will be used in {@link State#STATE_NOT_COOP}
@@ -80,7 +91,7 @@ public class CoopPlayer extends Player {
     /**
      * How many times we already waited in {@link State#STATE_WAIT} state
      * @see State#STATE_WAIT
-     * @see CoopPlayer#TIMES_TO_WAIT
+     * @see CoopPlayer#timesToWait
      */
     private int timesWaited = 0;
 
@@ -93,6 +104,26 @@ public class CoopPlayer extends Player {
 
     // Functions
 
+    /**
+     * Creates the player, which waits {@link CoopPlayer#TIMES_TO_WAIT} times
+     */
+    public CoopPlayer() {
+        this(TIMES_TO_WAIT);
+    }
+
+    /**
+     * Creates the player, which waits the given amount of times.
+     * It is useful, when the vegetation function or the dynamics of fields are different
+     *
+     * @param timesToWait How many times to wait while in {@link State#STATE_WAIT}
+     */
+    public CoopPlayer(int timesToWait) {
+        if (timesToWait < 0) {
+            throw new IllegalArgumentException("Amount of times to wait should not be negative, got " + timesToWait);
+        }
+        this.timesToWait = timesToWait;
+    }
+
     /**
      * Resets all remembered moves and counters to {@code 0}, and sets
      * {@link CoopPlayer#state} variable to {@link State#STATE_START}
@@ -107,23 +138,53 @@ public class CoopPlayer extends Player {
     }
 
     /**
-     * Performs the move according to the strategy and depending on the {@link CoopPlayer#state}.
-     * Each state can either return a move (and remember it) or change the state and continue the execution.
+     * Passes the random generator to the {@link CoopPlayer#ANOTHER_STRATEGY} too
+     */
+    @Override
+    public void reset(Random random) {
+        super.reset(random);
+        ANOTHER_STRATEGY.reset(random);
+    }
+
+    /**
+     * Performs the move according to the strategy, or the move of the {@link CoopPlayer#ANOTHER_STRATEGY}
      */
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
+        int move = coopMove(opponentLastMove, GameState.FIELDS);
+        return move != NOT_COOP ? move : ANOTHER_STRATEGY.move(opponentLastMove, xA, xB, xC);
+    }
+
+    /**
+     * The same as {@link CoopPlayer#move(int, int, int, int)}, but for any amount of fields
+     */
+    @Override
+    public int move(GameState gameState) {
+        int move = coopMove(gameState.getOpponentLastMove(), gameState.getFieldCount());
+        return move != NOT_COOP ? move : ANOTHER_STRATEGY.move(gameState);
+    }
+
+    /**
+     * Performs the move according to the strategy and depending on the {@link CoopPlayer#state}.
+     * Each state can either return a move (and remember it) or change the state and continue the execution.
+     *
+     * @param opponentLastMove The last move of the opponent
+     * @param fields Amount of fields
+     * @return The move, or {@link CoopPlayer#NOT_COOP} if the {@link CoopPlayer#ANOTHER_STRATEGY} should move
+     */
+    private int coopMove(int opponentLastMove, int fields) {
 
         if (state == State.STATE_START) {
             // at the very beginning
             if (opponentLastMove == myLastMove) {
                 // random moves until moves do not match
-                myLastMove = Random.randomMove();
+                myLastMove = random().nextField(fields);
                 return myLastMove;
             } else {
                 // when moves are different, change state and remember some fields
                 state = State.STATE_WAIT;
                 eatMove = myLastMove;
-                waitMove = 1 + 2 + 3 - myLastMove - opponentLastMove;
+                waitMove = otherField(myLastMove, opponentLastMove, fields);
             }
         } else if (opponentLastMove == eatMove) {
             // if we already decided on the spots, and opponent is trying to eat my field
@@ -131,7 +192,7 @@ public class CoopPlayer extends Player {
         }
 
         if (state == State.STATE_WAIT) {
-            if (timesWaited < TIMES_TO_WAIT) {
+            if (timesWaited < timesToWait) {
                 // wait for fields to grow
                 timesWaited++;
                 myLastMove = waitMove;
@@ -155,7 +216,78 @@ public class CoopPlayer extends Player {
         }
 
         // state = State.STATE_NOT_FRIEND
-        return ANOTHER_STRATEGY.move(opponentLastMove, xA, xB, xC);
+        return NOT_COOP;
+    }
+
+    /**
+     * Chooses the field to wait on, which is neither "mine" nor "opponent's"
+     *
+     * @return The first field, which is not {@code a} or {@code b}, or {@code 0}, so that nobody eats while waiting,
+     *         if there are no more fields
+     */
+    private static int otherField(int a, int b, int fields) {
+        for (int field = 1; field <= fields; field++) {
+            if (field != a && field != b) return field;
+        }
+        return 0;
+    }
+
+    /**
+     * Packs all fields into the key, using 16 bits for each move. After switching to {@link CoopPlayer#ANOTHER_STRATEGY},
+     * fields of this strategy do not change anymore, so only the key of the other strategy is needed
+     *
+     * @return The key of the state, or {@link Player#UNKNOWN_STATE} if the state of the other strategy is unknown,
+     *         the fields do not fit into the key, or this is a subclass, whose state is not known here
+     */
+    @Override
+    public long getStateKey(GameState gameState) {
+        if (getClass() != CoopPlayer.class) {
+            return UNKNOWN_STATE;
+        }
+        if (state == State.STATE_NOT_COOP) {
+            long anotherKey = ANOTHER_STRATEGY.getStateKey(gameState);
+            return anotherKey < 0 || anotherKey >= 1L << 61 ? UNKNOWN_STATE : state.ordinal() | anotherKey << 2;
+        }
+        if ((myLastMove | waitMove | eatMove) >>> 16 != 0 || timesWaited >>> 13 != 0) {
+            return UNKNOWN_STATE;
+        }
+        return state.ordinal() | (long) myLastMove << 2 | (long) waitMove << 18 | (long) eatMove << 34
+                | (long) timesWaited << 50;
+    }
+
+    /**
+     * @return Amount of times to wait, or an empty string for the default {@link CoopPlayer#TIMES_TO_WAIT},
+     *         so that the default player keeps its name and random generators
+     */
+    @Override
+    public String getParameters() {
+        return timesToWait == TIMES_TO_WAIT ? "" : "timesToWait=" + timesToWait;
+    }
+
+    /**
+     * @return New player, which waits the same amount of times. Subclasses are created by {@link Player#newInstance()},
+     *         since their constructors are not known here
+     * @throws ReflectiveOperationException if the subclass can not be instantiated
+     */
+    @Override
+    public Player newInstance() throws ReflectiveOperationException {
+        if (getClass() != CoopPlayer.class) {
+            return super.newInstance();
+        }
+        return new CoopPlayer(timesToWait);
+    }
+
+    /**
+     * Random moves at the start, as well as {@link CoopPlayer#ANOTHER_STRATEGY},
+     * use the random generator of the match.
+     * Subclasses may cooperate in any other way, so they get {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != CoopPlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
     }
 
 }
@@ -13,22 +13,124 @@ public class CopycatPlayer extends Player {
 
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
-        int[] x = {-1, xA, xB, xC};
+        return copycatMove(opponentLastMove, xA, xB, xC, random());
+    }
+
+    @Override
+    public int move(GameState state) {
+        return copycatMove(state, random());
+    }
+
+    /**
+     * Returns the move of this strategy for any amount of fields.
+     * For three fields, it makes the same moves and draws the same random numbers
+     * as {@link CopycatPlayer#copycatMove(int, int, int, int, Random)}
+     *
+     * @param state  the current state of the match
+     * @param random random generator of the match
+     * @return the move of the opponent, if it does not lead to the payoff of 0
+     */
+    public static int copycatMove(GameState state, Random random) {
+        int fields = state.getFieldCount();
+        int opponentLastMove = state.getOpponentLastMove();
+        if (opponentLastMove <= 0 || opponentLastMove > fields) {
+            return random.nextField(fields);
+        } else if (state.getX(opponentLastMove) != 0) {
+            return opponentLastMove;
+        }
+
+        // find the other fields, which do not lead to 0
+        int nonZero = 0, lastNonZero = 0, lastOther = 0;
+        for (int field = 1; field <= fields; field++) {
+            if (field == opponentLastMove) continue;
+            lastOther = field;
+            if (state.getX(field) != 0) {
+                nonZero++;
+                lastNonZero = field;
+            }
+        }
+        if (nonZero == 0) {
+            return lastOther;
+        } else if (nonZero == 1) {
+            return lastNonZero;
+        } else if (nonZero == fields - 1) {
+            return random.nextFieldExcluding(opponentLastMove, fields);
+        }
+        int skip = random.nextInt(nonZero);
+        for (int field = 1; field <= fields; field++) {
+            if (field != opponentLastMove && state.getX(field) != 0 && skip-- == 0) return field;
+        }
+        return lastNonZero;
+    }
+
+    /**
+     * Returns the move of this strategy in the usual game with three fields.
+     * It is static and takes X values directly, so that it can be reused by batch simulation
+     *
+     * @param opponentLastMove the last move of the opponent
+     * @param xA               the argument X for a field A
+     * @param xB               the argument X for a field B
+     * @param xC               the argument X for a field C
+     * @param random           random generator of the match
+     * @return the move of the opponent, if it does not lead to the payoff of 0
+     */
+    public static int copycatMove(int opponentLastMove, int xA, int xB, int xC, Random random) {
         if (opponentLastMove <= 0 || opponentLastMove > 3) {
-            return Random.randomMove();
-        } else if (x[opponentLastMove] != 0) {
+            return random.nextMove();
+        } else if (x(opponentLastMove, xA, xB, xC) != 0) {
             return opponentLastMove;
         } else {
             int move1 = (opponentLastMove != 1) ? 1 : 2;
             int move2 = 1 + 2 + 3 - opponentLastMove - move1;
-            if (x[move1] == 0) {
+            if (x(move1, xA, xB, xC) == 0) {
                 return move2;
-            } else if (x[move2] == 0) {
+            } else if (x(move2, xA, xB, xC) == 0) {
                 return move1;
             } else {
-                return Random.randomMoveExcluding(opponentLastMove);
+                return random.nextMoveExcluding(opponentLastMove);
             }
         }
     }
 
+    /**
+     * Returns the X value of the field without putting values into an array
+     *
+     * @param field The field, 1 for A, 2 for B and 3 for C
+     * @param xA the argument X for a field A
+     * @param xB the argument X for a field B
+     * @param xC the argument X for a field C
+     * @return the argument X of the {@code field}
+     */
+    private static int x(int field, int xA, int xB, int xC) {
+        switch (field) {
+            case 1: return xA;
+            case 2: return xB;
+            default: return xC;
+        }
+    }
+
+    /**
+     * @return {@code 0}, since this strategy keeps no state,
+     *         or {@link Player#UNKNOWN_STATE} for subclasses, whose state is not known here
+     */
+    @Override
+    public long getStateKey(GameState state) {
+        if (getClass() != CopycatPlayer.class) {
+            return UNKNOWN_STATE;
+        }
+        return 0;
+    }
+
+    /**
+     * Moves, which can not be copied, are chosen by the random generator of the match.
+     * A subclass may copy the opponent in any other way, so it gets {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != CopycatPlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
+    }
+
 }
@@ -0,0 +1,30 @@
+package name.kezzyhlo.moose_game.players;
+
+
+/**
+ * Describes what the moves of the strategy depend on.
+ * It allows the tournament to reuse results of matches instead of playing them again.
+ *
+ * @see Player#getDeterminism()
+ */
+public enum Determinism {
+
+    /**
+     * Moves can depend on anything, for example on static functions of
+     * {@link name.kezzyhlo.moose_game.Random} or on the time, so results of matches can not be reused
+     */
+    NONE,
+
+    /**
+     * Moves depend only on the state of the match and on {@link Player#random()},
+     * so two matches with the same seed have the same result
+     */
+    SEEDED,
+
+    /**
+     * Moves depend only on the state of the match, and random generator is not used at all,
+     * so two matches of such strategies always have the same result
+     */
+    FULL,
+
+}
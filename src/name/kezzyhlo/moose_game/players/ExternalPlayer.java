@@ -0,0 +1,109 @@
+package name.kezzyhlo.moose_game.players;
+
+
+import name.kezzyhlo.moose_game.Random;
+
+import java.lang.ref.Cleaner;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Strategy, which is played by an external program, as described in {@link ExternalProcess}.
+ *
+ * The tournament creates players by their default constructors, so each external strategy
+ * is a subclass, which only passes its command to this class:
+ * <pre>
+ * public class MyStrategy extends ExternalPlayer {
+ *     public MyStrategy() {
+ *         super("python3", "my_strategy.py");
+ *     }
+ * }
+ * </pre>
+ * All instances with the same command share one process, which plays all their matches concurrently.
+ * The process is told, that the match is over, after its last round, or, if the match was not finished,
+ * when the instance is reset or no longer used.
+ */
+public abstract class ExternalPlayer extends Player {
+
+    /**
+     * Sends the end of the match for instances, which are collected by the garbage collector before it is finished
+     */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    /**
+     * The program and its arguments
+     */
+    private final List<String> command;
+
+    /**
+     * The process, which plays this strategy
+     */
+    private final ExternalProcess process;
+
+    /**
+     * The match, which is played now, or {@code null} before the first {@link Player#reset(Random)}
+     */
+    private ExternalProcess.Session session = null;
+
+    /**
+     * Registration of the {@link ExternalPlayer#session} in the {@link ExternalPlayer#CLEANER}
+     */
+    private Cleaner.Cleanable cleanable = null;
+
+    /**
+     * Creates the player and starts the process, if it is not running yet
+     *
+     * @param command The program and its arguments
+     * @throws IllegalStateException if the process can not be started
+     */
+    protected ExternalPlayer(String... command) {
+        this.command = Collections.unmodifiableList(Arrays.asList(command.clone()));
+        this.process = ExternalProcess.forCommand(this.command);
+    }
+
+    /**
+     * Ends the previous match of this instance, if there was one,
+     * and starts the new one, seeded by the random generator of the match
+     *
+     * @param random Random generator, which should be used by this player during the match
+     */
+    @Override
+    public void reset(Random random) {
+        super.reset(random);
+        if (cleanable != null) {
+            cleanable.clean();
+        }
+        session = process.startSession(random.nextLong());
+        cleanable = CLEANER.register(this, session::end);
+    }
+
+    @Override
+    public int move(int opponentLastMove, int xA, int xB, int xC) {
+        if (session == null) {
+            reset(random());
+        }
+        return session.move(opponentLastMove, xA, xB, xC);
+    }
+
+    /**
+     * Ends the session of the match, so that the process can forget its state
+     */
+    @Override
+    public void matchFinished() {
+        if (cleanable != null) {
+            cleanable.clean();
+            cleanable = null;
+            session = null;
+        }
+    }
+
+    /**
+     * @return Command of the strategy, since different commands are different strategies
+     */
+    @Override
+    public String getParameters() {
+        return String.join(" ", command);
+    }
+
+}
@@ -0,0 +1,311 @@
+package name.kezzyhlo.moose_game.players;
+
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Strategy, which runs as a separate program and plays many matches at once.
+ * There is only one process for each command, shared by all {@link ExternalPlayer} instances with this command,
+ * and each match is a session with its own id.
+ *
+ * The protocol is text, one message per line, so that the strategy can be written in any language:
+ * <pre>
+ * to the process:   R &lt;id&gt; &lt;seed&gt;                            new match, the seed is for its randomness
+ *                   M &lt;id&gt; &lt;opponentLastMove&gt; &lt;xA&gt; &lt;xB&gt; &lt;xC&gt;   request of the move in the match
+ *                   E &lt;id&gt;                                   the match is over, its state can be forgotten
+ * from the process: &lt;id&gt; &lt;move&gt;                              answer to the request of the move
+ * </pre>
+ * Each match has at most one request without answer, and answers of different matches may come in any order.
+ * The process should exit, when its standard input is closed. Its standard error is shown as is.
+ *
+ * Requests are batched: while one batch is being written, requests of all other matches are collected
+ * and then written and flushed together, so the cost of a system call is shared by all concurrent matches.
+ * The process should do the same: read all requests, which are available, and flush its answers once.
+ * Threads of the fork-join pool, which wait for answers, tell the pool about it, so that it starts
+ * other matches instead, and more requests fit into each batch.
+ */
+@SuppressWarnings("WeakerAccess")
+public final class ExternalProcess implements Closeable {
+
+    /**
+     * Running processes by their commands
+     */
+    private static final Map<List<String>, ExternalProcess> PROCESSES = new ConcurrentHashMap<>();
+
+    private final List<String> command;
+    private final Process process;
+    private final Writer output;
+    private final BufferedReader input;
+    private final Map<Long, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    /**
+     * Messages, which are not written yet. Guarded by this process
+     */
+    private StringBuilder outgoing = new StringBuilder();
+
+    /**
+     * Amount of move requests in {@link ExternalProcess#outgoing}. Guarded by this process
+     */
+    private int outgoingRequests = 0;
+
+    /**
+     * Whether {@link ExternalProcess#outgoing} has the end of a match. Guarded by this process
+     */
+    private boolean outgoingEnds = false;
+
+    /**
+     * Error, which stopped the communication, or {@code null} while everything is fine
+     */
+    private volatile IOException failure = null;
+
+    private ExternalProcess(List<String> command) throws IOException {
+        this.command = command;
+        this.process = new ProcessBuilder(command).redirectError(ProcessBuilder.Redirect.INHERIT).start();
+        this.output = new OutputStreamWriter(process.getOutputStream(), StandardCharsets.US_ASCII);
+        this.input = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.US_ASCII));
+
+        Thread writer = new Thread(this::writeBatches, "moose-game-external-writer");
+        writer.setDaemon(true);
+        writer.start();
+        Thread reader = new Thread(this::readAnswers, "moose-game-external-reader");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    /**
+     * Returns the process of the command, starting it, if it is not running yet
+     *
+     * @param command The program and its arguments
+     * @return The process, shared by all players with the same command
+     * @throws IllegalStateException if the process can not be started
+     */
+    public static ExternalProcess forCommand(List<String> command) {
+        return PROCESSES.computeIfAbsent(new ArrayList<>(command), key -> {
+            try {
+                return new ExternalProcess(key);
+            } catch (IOException e) {
+                throw new IllegalStateException("Can not start " + String.join(" ", key), e);
+            }
+        });
+    }
+
+    /**
+     * Starts new match in the process
+     *
+     * @param seed Seed, which the process should use for random choices in this match
+     * @return The session of the match
+     */
+    public Session startSession(long seed) {
+        Session session = new Session(nextId.incrementAndGet());
+        sessions.put(session.id, session);
+        synchronized (this) {
+            outgoing.append("R ").append(session.id).append(' ').append(seed).append('\n');
+        }
+        return session;
+    }
+
+    /**
+     * @return Amount of move requests, sent to the process
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return Average amount of move requests in one write to the process
+     */
+    public double getAverageBatchSize() {
+        return (double) requests.sum() / Math.max(1, batches.sum());
+    }
+
+    /**
+     * Closes the standard input of the process and waits for it to exit.
+     * Players of this command can not be used anymore
+     *
+     * @throws IOException if the input can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        PROCESSES.remove(command, this);
+        fail(new IOException(String.join(" ", command) + " is closed"));
+        synchronized (this) {
+            notifyAll();
+        }
+        output.close();
+        try {
+            process.waitFor();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void send(Session session, int opponentLastMove, int xA, int xB, int xC) {
+        synchronized (this) {
+            outgoing.append("M ").append(session.id).append(' ').append(opponentLastMove)
+                    .append(' ').append(xA).append(' ').append(xB).append(' ').append(xC).append('\n');
+            outgoingRequests++;
+            notifyAll();
+        }
+    }
+
+    private void end(long id) {
+        sessions.remove(id);
+        synchronized (this) {
+            outgoing.append("E ").append(id).append('\n');
+            outgoingEnds = true;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Writes all collected messages at once, and waits for new ones.
+     * Requests of moves wake the writer, since somebody waits for their answers, and so do the ends of matches,
+     * since the last match of a player may have no requests after it. Starts of matches are written together with
+     * the first requests of the moves
+     */
+    private void writeBatches() {
+        StringBuilder batch = new StringBuilder();
+        try {
+            while (failure == null) {
+                int count;
+                synchronized (this) {
+                    while (outgoingRequests == 0 && !outgoingEnds && failure == null) {
+                        wait();
+                    }
+                    StringBuilder swap = outgoing;
+                    outgoing = batch;
+                    batch = swap;
+                    count = outgoingRequests;
+                    outgoingRequests = 0;
+                    outgoingEnds = false;
+                }
+                output.append(batch);
+                output.flush();
+                batch.setLength(0);
+                if (count > 0) {
+                    requests.add(count);
+                    batches.increment();
+                }
+            }
+        } catch (IOException e) {
+            fail(e);
+        } catch (InterruptedException e) {
+            fail(new IOException("Writer is interrupted", e));
+        }
+    }
+
+    private void readAnswers() {
+        try {
+            String line;
+            while ((line = input.readLine()) != null) {
+                int space = line.indexOf(' ');
+                if (space < 0) {
+                    throw new IOException("Unexpected answer of " + String.join(" ", command) + ": " + line);
+                }
+                Session session = sessions.get(Long.parseLong(line.substring(0, space)));
+                if (session != null) {
+                    session.answer(Integer.parseInt(line.substring(space + 1).trim()));
+                }
+            }
+            fail(new IOException(String.join(" ", command) + " has exited"));
+        } catch (IOException | NumberFormatException e) {
+            fail(e instanceof IOException ? (IOException) e : new IOException(e));
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+        for (Session session : sessions.values()) {
+            session.answer(0);
+        }
+    }
+
+    /**
+     * One match, played by the process
+     */
+    public final class Session implements ForkJoinPool.ManagedBlocker {
+
+        private final long id;
+        private boolean answered = false;
+        private int move = 0;
+
+        private Session(long id) {
+            this.id = id;
+        }
+
+        /**
+         * Asks the process for the move and waits for the answer
+         *
+         * @param opponentLastMove the last move of the opponent
+         * @param xA               the argument X for a field A
+         * @param xB               the argument X for a field B
+         * @param xC               the argument X for a field C
+         * @return The move, chosen by the process
+         * @throws IllegalStateException if the process has exited or does not follow the protocol
+         */
+        public int move(int opponentLastMove, int xA, int xB, int xC) {
+            synchronized (this) {
+                answered = false;
+            }
+            send(this, opponentLastMove, xA, xB, xC);
+            try {
+                ForkJoinPool.managedBlock(this);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + String.join(" ", command), e);
+            }
+            if (failure != null) {
+                throw new IllegalStateException(failure.getMessage(), failure);
+            }
+            synchronized (this) {
+                return move;
+            }
+        }
+
+        /**
+         * Tells the process, that the match is over
+         */
+        public void end() {
+            ExternalProcess.this.end(id);
+        }
+
+        private synchronized void answer(int move) {
+            this.move = move;
+            this.answered = true;
+            notifyAll();
+        }
+
+        @Override
+        public synchronized boolean block() throws InterruptedException {
+            while (!answered && failure == null) {
+                wait();
+            }
+            return true;
+        }
+
+        @Override
+        public synchronized boolean isReleasable() {
+            return answered || failure != null;
+        }
+
+    }
+
+}
@@ -0,0 +1,107 @@
+package name.kezzyhlo.moose_game.players;
+
+
+/**
+ * Read-only view of the current state of the match from the point of view of one player.
+ * The same instance is reused for all rounds of the match, and it is updated by the tournament
+ * between the rounds, so strategies should not keep references to it between calls of
+ * {@link Player#move(GameState)}.
+ *
+ * The usual game has three fields and two players, which is what the default methods describe.
+ * In a commons with more fields or players, the engine overrides them, and answers
+ * the queries about the best fields without scanning all of them.
+ */
+public interface GameState {
+
+    /**
+     * Amount of fields in the usual game
+     */
+    int FIELDS = 3;
+
+    /**
+     * Returns the argument X of the field
+     *
+     * @param field The field, 1 for A, 2 for B and 3 for C, or up to {@link GameState#getFieldCount()}
+     * @return The argument X of the {@code field}
+     */
+    int getX(int field);
+
+    /**
+     * Returns the last move of the opponent.
+     * In a commons with more than two players, the opponent is the next player after this one
+     *
+     * @return The last move of the opponent, or {@code 0} if this is the first move
+     */
+    int getOpponentLastMove();
+
+    /**
+     * @return The last move of this player, or {@code 0} if this is the first move
+     */
+    int getMyLastMove();
+
+    /**
+     * @return Amount of fields, {@link GameState#FIELDS} in the usual game
+     */
+    default int getFieldCount() {
+        return FIELDS;
+    }
+
+    /**
+     * @return Amount of players, who share the fields, {@code 2} in the usual game
+     */
+    default int getPlayerCount() {
+        return 2;
+    }
+
+    /**
+     * @return Index of this player among {@link GameState#getPlayerCount()} players
+     */
+    default int getMyIndex() {
+        return 0;
+    }
+
+    /**
+     * @param player Index of the player
+     * @return The last move of the {@code player}, or {@code 0} if this is the first move
+     */
+    default int getLastMove(int player) {
+        return player == getMyIndex() ? getMyLastMove() : getOpponentLastMove();
+    }
+
+    /**
+     * @return The biggest X value of all fields
+     */
+    default int getBestX() {
+        int best = getX(1);
+        for (int field = 2; field <= getFieldCount(); field++) {
+            best = Math.max(best, getX(field));
+        }
+        return best;
+    }
+
+    /**
+     * @return Amount of fields, whose X value is {@link GameState#getBestX()}
+     */
+    default int getBestFieldCount() {
+        int best = getBestX(), count = 0;
+        for (int field = 1; field <= getFieldCount(); field++) {
+            if (getX(field) == best) count++;
+        }
+        return count;
+    }
+
+    /**
+     * Returns one of the fields with the best X value, so that a random one can be chosen without collecting them
+     *
+     * @param k Index of the field among the best ones, from {@code 0} to {@link GameState#getBestFieldCount()} - 1
+     * @return The {@code k}-th field with the best X value, in the order of fields
+     */
+    default int getBestField(int k) {
+        int best = getBestX(), skip = k;
+        for (int field = 1; field <= getFieldCount(); field++) {
+            if (getX(field) == best && skip-- == 0) return field;
+        }
+        throw new IllegalArgumentException("There are less than " + (k + 1) + " best fields");
+    }
+
+}
@@ -3,22 +3,59 @@ package name.kezzyhlo.moose_game.players;
 
 import name.kezzyhlo.moose_game.Random;
 
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * This strategy selects randomly each round between {@link CopycatPlayer} and {@link BestFieldPlayer} tactics.
  */
 public class MixedBestCopyPlayer extends Player {
 
-    private List<Player> tactics = Arrays.asList(
+    private final Player[] tactics = {
             new CopycatPlayer(),
             new BestFieldPlayer()
-    );
+    };
+
+    /**
+     * Passes the random generator to all of the tactics
+     */
+    @Override
+    public void reset(Random random) {
+        super.reset(random);
+        for (Player tactic : tactics) {
+            tactic.reset(random);
+        }
+    }
 
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
-        return Random.randomFromList(tactics).move(opponentLastMove, xA, xB, xC);
+        return tactics[random().nextInt(0, tactics.length - 1)].move(opponentLastMove, xA, xB, xC);
+    }
+
+    @Override
+    public int move(GameState state) {
+        return tactics[random().nextInt(0, tactics.length - 1)].move(state);
+    }
+
+    /**
+     * @return {@code 0}, since neither this strategy nor its tactics keep any state,
+     *         or {@link Player#UNKNOWN_STATE} for subclasses, whose state is not known here
+     */
+    @Override
+    public long getStateKey(GameState state) {
+        if (getClass() != MixedBestCopyPlayer.class) {
+            return UNKNOWN_STATE;
+        }
+        return 0;
+    }
+
+    /**
+     * Both the choice of the tactic and the tactics themselves use the random generator of the match.
+     * Subclasses may add tactics of any kind, so they get {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != MixedBestCopyPlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
     }
 
 }
@@ -1,17 +1,53 @@
 package name.kezzyhlo.moose_game.players;
 
 
+import name.kezzyhlo.moose_game.Random;
+
 /**
  * Abstract class with basic things defined
  */
 public abstract class Player {
 
+    /**
+     * Random generator of the current match.
+     * Until the first {@link Player#reset(Random)}, it is unseeded
+     */
+    private Random random = new Random();
+
+    /**
+     * Returned by {@link Player#getStateKey(GameState)}, if the internal state can not be described by a key
+     */
+    public static final long UNKNOWN_STATE = -1;
+
     /**
      * This method is called to reset the agent before the match
      * with another player containing several rounds
      */
     public void reset() {}
 
+    /**
+     * This method is called by the tournament before the match.
+     * It remembers the random generator of the match and calls {@link Player#reset()}.
+     * Strategies, which contain other strategies, should override it to pass the generator further
+     *
+     * @param random Random generator, which should be used by this player during the match
+     */
+    public void reset(Random random) {
+        this.random = random;
+        reset();
+    }
+
+    /**
+     * Returns random generator of the current match.
+     * Strategies should use it instead of static functions of {@link Random},
+     * so that the results of the tournament can be reproduced using the same seed
+     *
+     * @return Random generator of the current match
+     */
+    protected final Random random() {
+        return random;
+    }
+
     /**
      * This method returns the move of the player based on
      * the last move of the opponent and X values of all fields.
@@ -29,6 +65,79 @@ public abstract class Player {
      */
     public abstract int move(int opponentLastMove, int xA, int xB, int xC);
 
+    /**
+     * This method returns the move of the player based on the state of the match.
+     * It is the method called by the tournament; by default
+     * it just passes values from the {@code state} to {@link Player#move(int, int, int, int)},
+     * so in a commons with more fields the strategy sees only the first three of them.
+     * Implementations should not allocate anything here,
+     * because it is called for each round of each match
+     *
+     * @param state the current state of the match, reused between rounds
+     * @return the move of the player can be 1 for A, 2 for B
+     *         and 3 for C fields, or up to {@link GameState#getFieldCount()}
+     */
+    public int move(GameState state) {
+        return move(state.getOpponentLastMove(), state.getX(1), state.getX(2), state.getX(3));
+    }
+
+    /**
+     * This method is called by the tournament after the last round of the match,
+     * so that the player can release what it has allocated for the match.
+     * The instance may be reset for another match afterwards. By default, it does nothing
+     */
+    public void matchFinished() {}
+
+    /**
+     * Returns the key of the internal state of this player. Together with the {@code state} of the match
+     * and the random generator of the match, the internal state should determine all next moves of the player.
+     *
+     * When the keys of both players, their random generators and the state of the match repeat,
+     * the match is known to be periodic, and the tournament skips the remaining repetitions of the cycle,
+     * adding their payoffs at once. Strategies, which keep no state, may return {@code 0};
+     * by default, the state is unknown, so every round is played
+     *
+     * @param state the current state of the match, the same as is given to {@link Player#move(GameState)}
+     * @return Non-negative key, equal for equal internal states, or {@link Player#UNKNOWN_STATE}
+     */
+    public long getStateKey(GameState state) {
+        return UNKNOWN_STATE;
+    }
+
+    /**
+     * Tells the tournament, what the moves of this strategy depend on.
+     * By default, it is {@link Determinism#NONE}, which is always safe
+     *
+     * @return Determinism of this strategy
+     */
+    public Determinism getDeterminism() {
+        return Determinism.NONE;
+    }
+
+    /**
+     * Returns the parameters of this instance, which affect its moves.
+     * Instances of the same class with different parameters are considered to be different strategies,
+     * when results of the matches are reused
+     *
+     * @return String representation of the parameters, empty by default
+     */
+    public String getParameters() {
+        return "";
+    }
+
+    /**
+     * Creates fresh instance of the same strategy with the same parameters, which is used for a new match.
+     * By default, the strategy is created by the {@link StrategyRegistry}, or by the constructor without arguments
+     * of the class, if it is not registered, so strategies with {@link Player#getParameters() parameters}
+     * should override this method
+     *
+     * @return New instance in its initial state
+     * @throws ReflectiveOperationException if the class can not be instantiated
+     */
+    public Player newInstance() throws ReflectiveOperationException {
+        return StrategyRegistry.create(getClass());
+    }
+
     /**
      * String representation of an instance for easy distinguishing.
      * Unlike the general {@link Object#toString()} method,
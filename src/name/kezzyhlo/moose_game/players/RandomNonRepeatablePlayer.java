@@ -1,8 +1,6 @@
 package name.kezzyhlo.moose_game.players;
 
 
-import name.kezzyhlo.moose_game.Random;
-
 /**
  * This strategy chooses random field like {@link RandomPlayer},
  * but it will not choose the same field twice in a row
@@ -25,8 +23,30 @@ public class RandomNonRepeatablePlayer extends Player {
 
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
-        if (previousMove == 0) return Random.randomMove();
-        return Random.randomMoveExcluding(previousMove);
+        if (previousMove == 0) return random().nextMove();
+        return random().nextMoveExcluding(previousMove);
+    }
+
+    /**
+     * Chooses any of the fields, however many of them there are
+     */
+    @Override
+    public int move(GameState state) {
+        int fields = state.getFieldCount();
+        if (previousMove == 0) return random().nextField(fields);
+        return random().nextFieldExcluding(previousMove, fields);
+    }
+
+    /**
+     * Fields are chosen by the random generator of the match.
+     * Subclasses are not known here and get {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != RandomNonRepeatablePlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
     }
 
 }
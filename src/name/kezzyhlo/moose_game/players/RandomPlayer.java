@@ -1,8 +1,6 @@
 package name.kezzyhlo.moose_game.players;
 
 
-import name.kezzyhlo.moose_game.Random;
-
 /**
  * This strategy just chooses random field.
  */
@@ -10,7 +8,27 @@ public class RandomPlayer extends Player {
 
     @Override
     public int move(int opponentLastMove, int xA, int xB, int xC) {
-        return Random.randomMove();
+        return random().nextMove();
+    }
+
+    /**
+     * Chooses any of the fields, however many of them there are
+     */
+    @Override
+    public int move(GameState state) {
+        return random().nextField(state.getFieldCount());
+    }
+
+    /**
+     * The field is chosen by the random generator of the match.
+     * A subclass may choose its fields in any other way, so it gets {@link Determinism#NONE}
+     */
+    @Override
+    public Determinism getDeterminism() {
+        if (getClass() != RandomPlayer.class) {
+            return Determinism.NONE;
+        }
+        return Determinism.SEEDED;
     }
 
 }
@@ -0,0 +1,84 @@
+package name.kezzyhlo.moose_game.players;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+
+/**
+ * Creates strategies without reflection.
+ *
+ * Bundled strategies are registered with their constructors, so creating them needs neither reflective access
+ * nor metadata for ahead-of-time compilation, like the reflection configuration of a native image.
+ * Other strategies can be registered by {@link StrategyRegistry#register(Class, Supplier)};
+ * unregistered ones are still created by their constructor without arguments, found by reflection.
+ *
+ * @see Player#newInstance()
+ */
+@SuppressWarnings("WeakerAccess")
+public final class StrategyRegistry {
+
+    /**
+     * No instances needed for this class
+     */
+    private StrategyRegistry() {}
+
+    /**
+     * Constructors of the registered strategies, by the names of their classes
+     */
+    private static final Map<String, Supplier<? extends Player>> FACTORIES = new ConcurrentHashMap<>();
+    static {
+        register(RandomPlayer.class, RandomPlayer::new);
+        register(RandomNonRepeatablePlayer.class, RandomNonRepeatablePlayer::new);
+        register(AlwaysSamePlayer.class, AlwaysSamePlayer::new);
+        register(BestFieldPlayer.class, BestFieldPlayer::new);
+        register(CopycatPlayer.class, CopycatPlayer::new);
+        register(MixedBestCopyPlayer.class, MixedBestCopyPlayer::new);
+        register(CoopPlayer.class, CoopPlayer::new);
+    }
+
+    /**
+     * Registers the strategy, so that it is created without reflection.
+     * The factory replaces the one, which was registered for the same class before
+     *
+     * @param playerClass Class of the strategy
+     * @param factory Creates new instances of exactly this class, in their initial state
+     * @param <T> Type of the strategy
+     */
+    public static <T extends Player> void register(Class<T> playerClass, Supplier<T> factory) {
+        FACTORIES.put(playerClass.getName(), factory);
+    }
+
+    /**
+     * @param className Binary name of the class, like {@code name.kezzyhlo.moose_game.players.CoopPlayer}
+     * @return {@code true} if the strategy is created without reflection
+     */
+    public static boolean isRegistered(String className) {
+        return FACTORIES.containsKey(className);
+    }
+
+    /**
+     * Creates new instance of the strategy with the default parameters
+     *
+     * @param playerClass Class of the strategy
+     * @return New player instance
+     * @throws ReflectiveOperationException if the strategy is not registered and can not be instantiated
+     */
+    public static Player create(Class<? extends Player> playerClass) throws ReflectiveOperationException {
+        Supplier<? extends Player> factory = FACTORIES.get(playerClass.getName());
+        return factory != null ? factory.get() : playerClass.getDeclaredConstructor().newInstance();
+    }
+
+    /**
+     * Creates new instance of the strategy with the default parameters, by the name of its class
+     *
+     * @param className Binary name of the class, like {@code name.kezzyhlo.moose_game.players.CoopPlayer}
+     * @return New player instance
+     * @throws ReflectiveOperationException if the strategy is not registered and can not be found or instantiated
+     */
+    public static Player create(String className) throws ReflectiveOperationException {
+        Supplier<? extends Player> factory = FACTORIES.get(className);
+        return factory != null ? factory.get() : create(Class.forName(className).asSubclass(Player.class));
+    }
+
+}